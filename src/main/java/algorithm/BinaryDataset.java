@@ -0,0 +1,260 @@
+package algorithm;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes the compact binary form of a dataset, already partitioned into short-time sub-datasets.
+ * The file holds a header, the window boundaries and columnar blocks, all big-endian:
+ * <pre>
+ * header:        magic "STPD", version, window count, transaction count, entry count   (5 ints)
+ *                length and UTF-8 bytes of the time zone of the windows               (int, bytes)
+ * windows:       start and end timestamp of every window                              (2 longs per window)
+ *                first transaction of every window, then the transaction count       (window count + 1 ints)
+ * transactions:  IDs, transaction utilities                                            (ints)
+ *                timestamps                                                            (longs)
+ *                first entry of every transaction, then the entry count               (transaction count + 1 ints)
+ * entries:       items, utilities                                                      (ints)
+ * </pre>
+ * Loading maps the file and copies each block with a single bulk read; the transactions of all windows share
+ * the same item and utility arrays through read-only views. A text dataset is cached in a file next to it
+ * (see cacheFile), which DatasetReader loads instead of the text while it is newer than the text. The weekly
+ * windows end at midnight in the system time zone, so a file written in another zone is rejected when read.
+ * Every count and offset is checked against the file, so a truncated or corrupted file is reported as an
+ * IOException, and a dataset whose file would exceed 2 GB is not written.
+ */
+public class BinaryDataset {
+    public static final String EXTENSION = ".stpd";
+    private static final int MAGIC = 0x53545044; // "STPD"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 6 * Integer.BYTES; // Up to the length of the time zone.
+
+    /**
+     * Returns the binary cache file of a text dataset.
+     *
+     * @param filepath the path of the text dataset file.
+     * @return the cache file, next to the text file.
+     */
+    public static File cacheFile(String filepath) {
+        return new File(filepath + EXTENSION);
+    }
+
+    /**
+     * Tells whether the cache file of a text dataset exists and is newer than the text file.
+     *
+     * @param filepath the path of the text dataset file.
+     * @return true if the cache can be loaded instead of the text file.
+     */
+    public static boolean isCacheValid(String filepath) {
+        File cache = cacheFile(filepath);
+        return cache.isFile() && cache.lastModified() >= new File(filepath).lastModified();
+    }
+
+    /**
+     * Writes short-time sub-datasets to a binary file. The file is first written under a temporary name
+     * and then moved, so a reader never sees a partial file.
+     *
+     * @param windows the short-time sub-datasets.
+     * @param starts the start timestamp of every window.
+     * @param ends the end timestamp of every window.
+     * @param file the binary file to write.
+     * @throws IOException if there is an error writing the file.
+     */
+    public static void write(List<List<Transaction>> windows, long[] starts, long[] ends, File file) throws IOException {
+        long transactionCount = 0;
+        long entryCount = 0;
+        for (List<Transaction> window : windows) {
+            transactionCount += window.size();
+            for (Transaction transaction : window) {
+                entryCount += transaction.getItems().size();
+            }
+        }
+        byte[] zone = ZoneId.systemDefault().getId().getBytes(StandardCharsets.UTF_8);
+        if (fileSize(windows.size(), transactionCount, entryCount, zone.length) > Integer.MAX_VALUE) {
+            throw new IOException(file + " would exceed 2 GB, the dataset is not cached");
+        }
+
+        File temporary = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(windows.size());
+            out.writeInt((int) transactionCount);
+            out.writeInt((int) entryCount);
+            out.writeInt(zone.length);
+            out.write(zone);
+
+            for (int w = 0; w < windows.size(); w++) {
+                out.writeLong(starts[w]);
+                out.writeLong(ends[w]);
+            }
+            int first = 0;
+            for (List<Transaction> window : windows) {
+                out.writeInt(first);
+                first += window.size();
+            }
+            out.writeInt(first);
+
+            for (List<Transaction> window : windows) {
+                for (Transaction transaction : window) out.writeInt(transaction.getId());
+            }
+            for (List<Transaction> window : windows) {
+                for (Transaction transaction : window) out.writeInt(transaction.getTransactionUtility());
+            }
+            for (List<Transaction> window : windows) {
+                for (Transaction transaction : window) out.writeLong(transaction.getTimestamp());
+            }
+            first = 0;
+            for (List<Transaction> window : windows) {
+                for (Transaction transaction : window) {
+                    out.writeInt(first);
+                    first += transaction.getItems().size();
+                }
+            }
+            out.writeInt(first);
+
+            for (List<Transaction> window : windows) {
+                for (Transaction transaction : window) {
+                    for (int item : transaction.getItems()) out.writeInt(item);
+                }
+            }
+            for (List<Transaction> window : windows) {
+                for (Transaction transaction : window) {
+                    List<Integer> items = transaction.getItems();
+                    List<Integer> utilities = transaction.getUtilities();
+                    // The columnar layout requires one utility per item.
+                    if (utilities.size() != items.size()) {
+                        throw new IOException("Transaction " + transaction.getId() + " has "
+                                + items.size() + " items but " + utilities.size() + " utilities");
+                    }
+                    for (int utility : utilities) out.writeInt(utility);
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary.toPath());
+            throw e;
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads the short-time sub-datasets from a binary file.
+     *
+     * @param file the binary file to read.
+     * @return the list of short-time sub-datasets.
+     * @throws IOException if there is an error reading the file, the file is not a valid binary dataset, or its
+     *                     windows were partitioned in another time zone.
+     */
+    public static List<List<Transaction>> read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is not a binary dataset");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException(file + " is not a binary dataset (version " + VERSION + ")");
+            }
+            int windowCount = buffer.getInt();
+            int transactionCount = buffer.getInt();
+            int entryCount = buffer.getInt();
+            int zoneLength = buffer.getInt();
+            if (windowCount < 0 || transactionCount < 0 || entryCount < 0 || zoneLength < 0
+                    || channel.size() != fileSize(windowCount, transactionCount, entryCount, zoneLength)) {
+                throw new IOException(file + " is truncated or corrupted");
+            }
+            byte[] zone = new byte[zoneLength];
+            buffer.get(zone);
+            String zoneId = new String(zone, StandardCharsets.UTF_8);
+            if (!zoneId.equals(ZoneId.systemDefault().getId())) {
+                throw new IOException(file + " was partitioned in the time zone " + zoneId);
+            }
+
+            buffer.position(buffer.position() + 2 * Long.BYTES * windowCount); // Window boundaries are not needed here.
+            int[] windowOffsets = readInts(buffer, windowCount + 1);
+            int[] ids = readInts(buffer, transactionCount);
+            int[] transactionUtilities = readInts(buffer, transactionCount);
+            long[] timestamps = new long[transactionCount];
+            buffer.asLongBuffer().get(timestamps);
+            buffer.position(buffer.position() + Long.BYTES * transactionCount);
+            int[] offsets = readInts(buffer, transactionCount + 1);
+            int[] items = readInts(buffer, entryCount);
+            int[] utilities = readInts(buffer, entryCount);
+            if (!isMonotonic(windowOffsets, transactionCount) || !isMonotonic(offsets, entryCount)) {
+                throw new IOException(file + " is truncated or corrupted");
+            }
+
+            List<List<Transaction>> windows = new ArrayList<>(windowCount);
+            for (int w = 0; w < windowCount; w++) {
+                List<Transaction> window = new ArrayList<>(windowOffsets[w + 1] - windowOffsets[w]);
+                for (int t = windowOffsets[w]; t < windowOffsets[w + 1]; t++) {
+                    window.add(new Transaction(ids[t], new IntArrayView(items, offsets[t], offsets[t + 1]),
+                            new IntArrayView(utilities, offsets[t], offsets[t + 1]), transactionUtilities[t], timestamps[t]));
+                }
+                windows.add(window);
+            }
+            return windows;
+        }
+    }
+
+    /**
+     * Converts a text dataset file to its binary cache file.
+     *
+     * @param args the paths of the text dataset files to convert.
+     * @throws IOException if there is an error reading or writing a file.
+     */
+    public static void main(String[] args) throws IOException {
+        for (String filepath : args) {
+            DatasetReader.convertToBinary(filepath);
+            System.out.println("Converted " + filepath + " to " + cacheFile(filepath));
+        }
+    }
+
+    /**
+     * Returns the size of a binary dataset file.
+     *
+     * @param windowCount the number of windows.
+     * @param transactionCount the number of transactions.
+     * @param entryCount the number of items in all the transactions.
+     * @param zoneLength the length of the time zone in bytes.
+     * @return the size of the file in bytes.
+     */
+    private static long fileSize(long windowCount, long transactionCount, long entryCount, int zoneLength) {
+        return HEADER_SIZE + zoneLength
+                + 2L * Long.BYTES * windowCount
+                + (long) Integer.BYTES * (windowCount + 1)
+                + (2L * Integer.BYTES + Long.BYTES) * transactionCount
+                + (long) Integer.BYTES * (transactionCount + 1)
+                + 2L * Integer.BYTES * entryCount;
+    }
+
+    /**
+     * Tells whether offsets start at 0, never decrease and end at the given count, so that every range they delimit
+     * lies within the block they index.
+     */
+    private static boolean isMonotonic(int[] offsets, int count) {
+        if (offsets[0] != 0 || offsets[offsets.length - 1] != count) return false;
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] < offsets[i - 1]) return false;
+        }
+        return true;
+    }
+
+    private static int[] readInts(MappedByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + Integer.BYTES * count);
+        return values;
+    }
+}
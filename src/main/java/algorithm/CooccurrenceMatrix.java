@@ -0,0 +1,133 @@
+package algorithm;
+
+/**
+ * Estimated utility co-occurrence structure (EUCS) of a recoded transaction database.
+ * For every pair of items, it holds the sum of the positive transaction utilities (PTU) of the transactions
+ * containing both items. The utility of an itemset in a transaction never exceeds the PTU, even with negative
+ * utilities, and neither do the remaining and sub-tree utilities used by the miners, so an extension whose pair
+ * value with the last item of the prefix is below minUtil can be pruned before any utility-list is joined.
+ * Pairs are stored in a dense triangular array when the number of items is small, and in an open-addressing
+ * hash table of the co-occurring pairs otherwise.
+ */
+public class CooccurrenceMatrix {
+    private static final int MAX_DENSE_ITEMS = 512; // Dense array of at most 1 MB; above, only co-occurring pairs.
+
+    private final long[] dense;   // Triangular array of pair utilities (null in sparse mode).
+    private long[] keys;          // Pair keys of the hash table (0 = empty slot), sparse mode only.
+    private long[] values;        // Pair utilities aligned with keys, sparse mode only.
+    private int pairs;            // Number of pairs stored in the hash table.
+
+    /**
+     * Builds the structure in a single pass over the transactions.
+     *
+     * @param database the transaction database, whose items are dense IDs below itemCount.
+     * @param itemCount the number of distinct items.
+     */
+    public CooccurrenceMatrix(TransactionDatabase database, int itemCount) {
+        if (itemCount <= MAX_DENSE_ITEMS) {
+            this.dense = new long[itemCount * (itemCount - 1) / 2 + 1];
+        } else {
+            this.dense = null;
+            this.keys = new long[1024];
+            this.values = new long[1024];
+        }
+
+        for (int tid = 0; tid < database.size(); tid++) {
+            this.addTransaction(database, tid);
+        }
+    }
+
+    /**
+     * Adds the PTU of a transaction to every pair of its items, for a transaction appended to the database
+     * after the structure was built.
+     *
+     * @param database the transaction database.
+     * @param tid the transaction index.
+     */
+    public void addTransaction(TransactionDatabase database, int tid) {
+        int[] items = database.getItems();
+        int ptu = database.getPtus()[tid];
+        if (ptu == 0) return;
+        // Items are in ascending order within each transaction.
+        for (int i = database.start(tid); i < database.end(tid); i++) {
+            for (int j = i + 1; j < database.end(tid); j++) {
+                if (items[j] != items[i]) this.add(items[i], items[j], ptu);
+            }
+        }
+    }
+
+    /**
+     * Returns the upper bound of the utility of every itemset containing both items.
+     *
+     * @param item1 the first item.
+     * @param item2 the second item (different from the first one).
+     * @return the sum of the PTU of the transactions containing both items.
+     */
+    public long getUtility(int item1, int item2) {
+        int low = Math.min(item1, item2);
+        int high = Math.max(item1, item2);
+        if (this.dense != null) return this.dense[this.denseIndex(low, high)];
+
+        long key = ((long) low << 32) | high;
+        int mask = this.keys.length - 1;
+        for (int slot = hash(key) & mask; this.keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (this.keys[slot] == key) return this.values[slot];
+        }
+        return 0;
+    }
+
+    /**
+     * Adds a transaction utility to a pair of items (low below high).
+     */
+    private void add(int low, int high, long utility) {
+        if (this.dense != null) {
+            this.dense[this.denseIndex(low, high)] += utility;
+            return;
+        }
+
+        long key = ((long) low << 32) | high; // Never 0, since high is above low.
+        int mask = this.keys.length - 1;
+        int slot = hash(key) & mask;
+        while (this.keys[slot] != 0 && this.keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (this.keys[slot] == 0) {
+            this.keys[slot] = key;
+            this.pairs++;
+        }
+        this.values[slot] += utility;
+        if (this.pairs * 2 > this.keys.length) this.grow();
+    }
+
+    /**
+     * Doubles the capacity of the hash table.
+     */
+    private void grow() {
+        long[] oldKeys = this.keys;
+        long[] oldValues = this.values;
+        this.keys = new long[oldKeys.length * 2];
+        this.values = new long[oldKeys.length * 2];
+        int mask = this.keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0) continue;
+            int slot = hash(oldKeys[i]) & mask;
+            while (this.keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            this.keys[slot] = oldKeys[i];
+            this.values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Returns the position of a pair in the triangular array (low below high).
+     */
+    private int denseIndex(int low, int high) {
+        return high * (high - 1) / 2 + low;
+    }
+
+    private static int hash(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
@@ -1,9 +1,8 @@
 package algorithm;
 
 import java.io.*;
-import java.time.*;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * The DatasetReader class is responsible for reading a dataset file,
@@ -11,37 +10,39 @@ import java.util.*;
  * sub-datasets based on the dataset type.
  */
 public class DatasetReader {
+    private static final int ONE_HOUR_WINDOWS = 6; // Number of hourly sub-datasets extracted for 'korasak'.
 
     /**
      * Reads the dataset from the given file path, parses each transaction,
      * and transforms the transactions into short-time sub-datasets.
      * For the "korasak" dataset, one-hour sub-datasets are produced;
      * for other datasets (e.g., retail, ecommerce, mushroom), weekly sub-datasets are produced.
+     * The sub-datasets are loaded from the binary cache of the file when it is newer than the file;
+     * otherwise, or if the cache is corrupted or was partitioned in another time zone, the text is parsed
+     * and the cache is (re)built for the next runs (unless it would exceed 2 GB, see BinaryDataset).
      *
      * @param filepath the path of the dataset file.
      * @return a list of short-time transaction sub-datasets.
      * @throws IOException if there is an error reading the file.
      */
     public static List<List<Transaction>> readDataset(String filepath) throws IOException {
-        List<Transaction> transactions = new ArrayList<>();
-        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(filepath))) {
-            String line;
-            int transactionID = 1;
-
-            while ((line = bufferedReader.readLine()) != null) {
-                Transaction transaction = parseTransaction(line, transactionID++);
-                if (transaction != null) {
-                    transactions.add(transaction);
-                }
+        List<List<Transaction>> shortTimeDatasets = null;
+        if (BinaryDataset.isCacheValid(filepath)) {
+            try {
+                shortTimeDatasets = BinaryDataset.read(BinaryDataset.cacheFile(filepath));
+                System.out.println("Loaded short time transactions from " + BinaryDataset.cacheFile(filepath));
+            } catch (IOException e) {
+                System.err.println("Ignoring the binary cache: " + e.getMessage());
             }
         }
-
-        System.out.println("\n--------------------------- Starting to transform transactions to short time transactions ---------------------------\n");
-        List<List<Transaction>> shortTimeDatasets;
-        if (extractDatasetName(filepath).equals("korasak")) {
-            shortTimeDatasets = transformToOneHourTransactions(transactions);
-        } else {
-            shortTimeDatasets = transformToWeeklyTransactions(transactions);
+        if (shortTimeDatasets == null) {
+            shortTimeDatasets = new ArrayList<>();
+            WindowPartitioner partitioner = readTextDataset(filepath, shortTimeDatasets);
+            try {
+                writeBinary(filepath, shortTimeDatasets, partitioner);
+            } catch (IOException e) {
+                System.err.println("Could not write the binary cache: " + e.getMessage());
+            }
         }
         System.out.println("Transactions loaded: " + shortTimeDatasets.stream().mapToInt(List::size).sum());
         System.out.println("Short Time Transactions loaded: " + shortTimeDatasets.size());
@@ -49,158 +50,115 @@ public class DatasetReader {
     }
 
     /**
-     * Parses a single transaction from a line of text.
-     * The expected format is: "item_list: transactionUtility: utility_list: timestamp".
+     * Converts a text dataset file to its binary cache file (see BinaryDataset).
      *
-     * @param line          the input line containing transaction data.
-     * @param transactionID the unique identifier to assign to this transaction.
-     * @return a Transaction object or null if parsing fails.
+     * @param filepath the path of the text dataset file.
+     * @throws IOException if there is an error reading the text file or writing the binary file.
      */
-    private static Transaction parseTransaction(String line, int transactionID) {
-        try {
-            String[] parts = line.split(":");
-            if (parts.length != 4) {
-                return null;
-            }
-
-            List<Integer> items = parseIntegerList(parts[0]);
-            int transactionUtility = Integer.parseInt(parts[1].trim());
-            List<Integer> utilities = parseIntegerList(parts[2]);
-            long timestamp = Long.parseLong(parts[3].trim());
-            return new Transaction(transactionID, items, utilities, transactionUtility, timestamp);
-        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
-            System.err.println("Error parsing line: " + line);
-            return null;
-        }
-    }
-
-    /**
-     * Parses a space-separated string of integers into a list.
-     *
-     * @param input the input string containing integers.
-     * @return a list of integers.
-     */
-    private static List<Integer> parseIntegerList(String input) {
-        String[] tokens = input.trim().split("\\s+");
-        List<Integer> integerList = new ArrayList<>();
-        for (String token : tokens) {
-            integerList.add(Integer.parseInt(token));
-        }
-        return integerList;
+    public static void convertToBinary(String filepath) throws IOException {
+        List<List<Transaction>> shortTimeDatasets = new ArrayList<>();
+        WindowPartitioner partitioner = readTextDataset(filepath, shortTimeDatasets);
+        writeBinary(filepath, shortTimeDatasets, partitioner);
     }
 
     /**
-     * Transforms the list of transactions into weekly sub-datasets.
-     * This method is used for retail, ecommerce, and mushroom datasets.
+     * Parses a text dataset file and partitions its transactions into short-time sub-datasets.
      *
-     * @param transactions the complete list of transactions.
-     * @return a list of weekly sub-datasets.
+     * @param filepath the path of the text dataset file.
+     * @param shortTimeDatasets the list receiving the short-time sub-datasets.
+     * @return the partitioner, which holds the boundaries of the sub-datasets.
+     * @throws IOException if there is an error reading the file.
      */
-    private static List<List<Transaction>> transformToWeeklyTransactions(List<Transaction> transactions) {
-        List<List<Transaction>> weeklyTransactions = new ArrayList<>();
-        // Process transactions in weekly segments.
-        long startTimestamp = transactions.get(0).getTimestamp();
+    private static WindowPartitioner readTextDataset(String filepath, List<List<Transaction>> shortTimeDatasets)
+            throws IOException {
+        List<Transaction> transactions = new ArrayList<>();
+        TransactionFileParser parser = new TransactionFileParser();
+        parser.parse(filepath, transactions::add);
+        parser.reportMalformedLines();
 
-        for (Transaction transaction : transactions) {
-            if (transaction.getTimestamp() >= startTimestamp) {
-                List<Transaction> weeklyTransaction = extractWeeklyTransactions(transactions, startTimestamp);
-                weeklyTransactions.add(weeklyTransaction);
-                startTimestamp = alignToEndOfDay(startTimestamp) + 604801; // Move to the next week; 604801 seconds = one week + 1 second to avoid overlap.
-            }
+        System.out.println("\n--------------------------- Starting to transform transactions to short time transactions ---------------------------\n");
+        // The partitioner makes a single pass over the transactions, which requires them in timestamp order.
+        transactions.sort(Comparator.comparingLong(Transaction::getTimestamp));
+        WindowPartitioner partitioner;
+        if (extractDatasetName(filepath).equals("korasak")) {
+            partitioner = createOneHourPartitioner(shortTimeDatasets::add);
+        } else {
+            partitioner = createWeeklyPartitioner(shortTimeDatasets::add);
         }
-
-        return weeklyTransactions;
-    }
-
-    /**
-     * Extracts transactions within a weekly window from the list of transactions.
-     *
-     * @param transactions the complete list of transactions.
-     * @param startTimestamp the starting timestamp of the week.
-     * @return a list of transactions that fall within the week.
-     */
-    private static List<Transaction> extractWeeklyTransactions(List<Transaction> transactions, long startTimestamp) {
-        List<Transaction> result = new ArrayList<>();
-        int secondsInAWeek = 604800; // Seconds in one week
-        long endTimestamp = alignToEndOfDay(startTimestamp) + secondsInAWeek;
         for (Transaction transaction : transactions) {
-            if (transaction.getTimestamp() >= startTimestamp && transaction.getTimestamp() <= endTimestamp) {
-                result.add(transaction);
-            }
+            partitioner.add(transaction);
         }
-        System.err.println("Extracted " + result.size() + " transactions from " + getLocalDateTime(startTimestamp) + " to " + getLocalDateTime(endTimestamp));
-        return result;
+        partitioner.finish();
+        return partitioner;
     }
 
     /**
-     * Transforms the list of transactions into one-hour sub-datasets.
-     * This method is used for the Kosarak (click-stream) dataset.
-     * For visualization, only six hourly subsets are extracted.
-     *
-     * @param transactions the complete list of transactions.
-     * @return a list of one-hour sub-datasets.
+     * Writes short-time sub-datasets to the binary cache file of a text dataset.
      */
-    private static List<List<Transaction>> transformToOneHourTransactions(List<Transaction> transactions) {
-        List<List<Transaction>> oneHourTransList = new ArrayList<>();
-        long startTimestamp = transactions.get(0).getTimestamp();
-        // Extract only six hourly subsets for clarity.
-        for (Transaction transaction : transactions) {
-            // For clarity and ease of visualization of performance, we only take six hourly subsets of the 'korasak' dataset.
-            if (oneHourTransList.size() == 6) break;
-            if (transaction.getTimestamp() >= startTimestamp) {
-                List<Transaction> oneHourTrans = extractOneHourTransactions(transactions, startTimestamp);
-                oneHourTransList.add(oneHourTrans);
-                startTimestamp = startTimestamp + 3601; // Increment start timestamp by one hour + 1 second to avoid overlap.
-            }
+    private static void writeBinary(String filepath, List<List<Transaction>> shortTimeDatasets,
+                                    WindowPartitioner partitioner) throws IOException {
+        List<long[]> boundaries = partitioner.getBoundaries();
+        long[] starts = new long[boundaries.size()];
+        long[] ends = new long[boundaries.size()];
+        for (int i = 0; i < boundaries.size(); i++) {
+            starts[i] = boundaries.get(i)[0];
+            ends[i] = boundaries.get(i)[1];
         }
-        return oneHourTransList;
+        BinaryDataset.write(shortTimeDatasets, starts, ends, BinaryDataset.cacheFile(filepath));
     }
 
     /**
-     * Extracts transactions within a one-hour window.
+     * Reads the dataset from the given file path as a stream. Each line is parsed and passed to the window
+     * partitioner, and every short-time sub-dataset is handed to the consumer as soon as it is closed,
+     * so only the open sub-dataset is kept in memory. The file must therefore be in timestamp order.
      *
-     * @param transactions the complete list of transactions.
-     * @param startTimestamp the starting timestamp of the hour.
-     * @return a list of transactions that fall within the hour.
+     * @param filepath the path of the dataset file.
+     * @param consumer the consumer receiving every short-time sub-dataset, in order.
+     * @throws IOException if there is an error reading the file or the transactions are not in timestamp order.
      */
-    private static List<Transaction> extractOneHourTransactions(List<Transaction> transactions, long startTimestamp) {
-        List<Transaction> result = new ArrayList<>();
-        long endTimestamp = startTimestamp + 3600; // 3600 seconds in one hour.
-        for (Transaction transaction : transactions) {
-            if (transaction.getTimestamp() >= startTimestamp && transaction.getTimestamp() <= endTimestamp) {
-                result.add(transaction);
-            }
+    public static void streamDataset(String filepath, Consumer<List<Transaction>> consumer) throws IOException {
+        WindowPartitioner partitioner = extractDatasetName(filepath).equals("korasak")
+                ? createOneHourPartitioner(consumer) : createWeeklyPartitioner(consumer);
+        TransactionFileParser parser = new TransactionFileParser();
+        long[] lastTimestamp = {Long.MIN_VALUE};
+        try {
+            parser.parse(filepath, transaction -> {
+                if (transaction.getTimestamp() < lastTimestamp[0]) {
+                    throw new UncheckedIOException(new IOException(
+                            "Transaction " + transaction.getId() + " is not in timestamp order"));
+                }
+                lastTimestamp[0] = transaction.getTimestamp();
+                partitioner.add(transaction);
+                if (partitioner.isFinished()) parser.stop();
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
-
-        System.err.println("Extracted " + result.size() + " transactions from "
-                + getLocalDateTime(startTimestamp) + " to " + getLocalDateTime(endTimestamp));
-        return result;
+        parser.reportMalformedLines();
+        partitioner.finish();
     }
 
     /**
-     * Aligns the given timestamp to the end of its day (23:59:59).
+     * Creates the partitioner of weekly sub-datasets.
+     * This partitioner is used for retail, ecommerce, and mushroom datasets.
      *
-     * @param timestamp the input timestamp (in seconds).
-     * @return the timestamp corresponding to 23:59:59 of the same day.
+     * @param consumer the consumer receiving every weekly sub-dataset.
+     * @return the partitioner.
      */
-    private static long alignToEndOfDay(long timestamp) {
-        Instant instant = Instant.ofEpochSecond(timestamp);
-        LocalDateTime localDateTime = LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
-        LocalDateTime endOfDay = localDateTime.toLocalDate().atTime(23, 59, 59);
-        return endOfDay.atZone(ZoneId.systemDefault()).toEpochSecond();
+    private static WindowPartitioner createWeeklyPartitioner(Consumer<List<Transaction>> consumer) {
+        return new WindowPartitioner(false, Integer.MAX_VALUE, consumer);
     }
 
     /**
-     * Converts a timestamp to a formatted local date and time string.
+     * Creates the partitioner of one-hour sub-datasets.
+     * This partitioner is used for the Kosarak (click-stream) dataset.
+     * For clarity and ease of visualization of performance, only six hourly subsets are extracted.
      *
-     * @param timestamp the input timestamp (in seconds).
-     * @return a formatted date/time string (e.g., "HH:mm:ss dd/MM/yyyy").
+     * @param consumer the consumer receiving every one-hour sub-dataset.
+     * @return the partitioner.
      */
-    private static String getLocalDateTime(long timestamp) {
-        Instant instant = Instant.ofEpochSecond(timestamp);
-        LocalDateTime dateTime = LocalDateTime.ofInstant(instant, TimeZone.getDefault().toZoneId());
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss dd/MM/yyyy");
-        return dateTime.format(formatter);
+    private static WindowPartitioner createOneHourPartitioner(Consumer<List<Transaction>> consumer) {
+        return new WindowPartitioner(true, ONE_HOUR_WINDOWS, consumer);
     }
 
     /**
@@ -0,0 +1,38 @@
+package algorithm;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Read-only list view of a range of an int array, so that a transaction does not hold one Integer object per value.
+ * Several views may share the same array (e.g. all the transactions loaded from a binary dataset).
+ */
+class IntArrayView extends AbstractList<Integer> implements RandomAccess {
+    private final int[] values;
+    private final int from; // First position of the view (inclusive).
+    private final int to;   // Last position of the view (exclusive).
+
+    /**
+     * Constructs a view of the given range.
+     *
+     * @param values the backing array.
+     * @param from the first position of the view (inclusive).
+     * @param to the last position of the view (exclusive).
+     */
+    IntArrayView(int[] values, int from, int to) {
+        this.values = values;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public Integer get(int index) {
+        if (index < 0 || index >= this.to - this.from) throw new IndexOutOfBoundsException("Index: " + index);
+        return this.values[this.from + index];
+    }
+
+    @Override
+    public int size() {
+        return this.to - this.from;
+    }
+}
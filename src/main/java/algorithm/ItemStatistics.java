@@ -0,0 +1,132 @@
+package algorithm;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the transaction-weighted utility (TWU), the positive utility and the supports of the items of a set of
+ * transactions, as exact 64-bit sums. The TWU of an item sums, over the transactions containing it, the transaction
+ * utility adjusted with the negative utilities of the transaction. The statistics are either built in one pass over
+ * a transaction database, or maintained as transactions are added to and removed from a sliding window
+ * (see SlidingWindowMiner), so that the items of every window are filtered and ordered without another pass.
+ */
+public class ItemStatistics {
+    private final Map<Integer, Long> twu = new HashMap<>();              // TWU of every item.
+    private final Map<Integer, Long> posUtil = new HashMap<>();          // Positive utility of every item.
+    private final Map<Integer, Integer> supports = new HashMap<>();      // Occurrences of every item.
+    private final Map<Integer, Integer> negativeSupports = new HashMap<>(); // Occurrences with a negative utility.
+
+    /**
+     * Computes the statistics of the transactions of a database.
+     *
+     * @param database the transaction database, with original items.
+     * @return the statistics of its items.
+     */
+    public static ItemStatistics of(TransactionDatabase database) {
+        ItemStatistics statistics = new ItemStatistics();
+        for (int tid = 0; tid < database.size(); tid++) {
+            int start = database.start(tid);
+            int end = database.end(tid);
+            long transactionTWU = database.getTransactionUtilities()[tid];
+            for (int i = start; i < end; i++) {
+                transactionTWU += Math.min(database.getUtilities()[i], 0); // Adjust with negative values.
+            }
+            for (int i = start; i < end; i++) {
+                statistics.update(database.getItems()[i], database.getUtilities()[i], transactionTWU, 1);
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Adds the items of a transaction to the statistics.
+     *
+     * @param transaction the transaction entering the set.
+     */
+    public void add(Transaction transaction) {
+        this.update(transaction, 1);
+    }
+
+    /**
+     * Removes the items of a transaction from the statistics. The transaction must have been added before.
+     *
+     * @param transaction the transaction leaving the set.
+     */
+    public void remove(Transaction transaction) {
+        this.update(transaction, -1);
+    }
+
+    /**
+     * Adds the statistics of other transactions, disjoint from these ones, so that statistics computed once per
+     * window can be combined for any range of windows (see RangeQueryService).
+     *
+     * @param other the statistics of the other transactions.
+     */
+    public void addAll(ItemStatistics other) {
+        other.supports.forEach((item, support) -> this.supports.merge(item, support, Integer::sum));
+        other.twu.forEach((item, twu) -> this.twu.merge(item, twu, Long::sum));
+        other.posUtil.forEach((item, posUtil) -> this.posUtil.merge(item, posUtil, Long::sum));
+        other.negativeSupports.forEach((item, support) -> this.negativeSupports.merge(item, support, Integer::sum));
+    }
+
+    /**
+     * Returns the TWU of every item occurring in the transactions.
+     *
+     * @return the TWU by item.
+     */
+    public Map<Integer, Long> getTwu() {
+        return this.twu;
+    }
+
+    /**
+     * Returns the positive utility of every item occurring in the transactions.
+     *
+     * @return the positive utility by item.
+     */
+    public Map<Integer, Long> getPosUtil() {
+        return this.posUtil;
+    }
+
+    /**
+     * Tells whether an item has a negative utility in some transaction.
+     *
+     * @param item the item.
+     * @return true if some occurrence of the item has a negative utility.
+     */
+    public boolean isNegative(int item) {
+        return this.negativeSupports.containsKey(item);
+    }
+
+    private void update(Transaction transaction, int sign) {
+        List<Integer> items = transaction.getItems();
+        List<Integer> utilities = transaction.getUtilities();
+        long transactionTWU = transaction.getTransactionUtility();
+        for (int i = 0; i < utilities.size(); i++) {
+            transactionTWU += Math.min(utilities.get(i), 0); // Adjust with negative values.
+        }
+        for (int i = 0; i < items.size(); i++) {
+            this.update(items.get(i), utilities.get(i), transactionTWU, sign);
+        }
+    }
+
+    /**
+     * Adds (sign 1) or removes (sign -1) one occurrence of an item; an item without occurrences is forgotten.
+     */
+    private void update(int item, int utility, long transactionTWU, int sign) {
+        int support = this.supports.merge(item, sign, Integer::sum);
+        if (support == 0) {
+            this.supports.remove(item);
+            this.twu.remove(item);
+            this.posUtil.remove(item);
+            this.negativeSupports.remove(item);
+            return;
+        }
+        this.twu.merge(item, sign * transactionTWU, Long::sum);
+        if (utility >= 0) {
+            this.posUtil.merge(item, sign * (long) utility, Long::sum);
+        } else if (this.negativeSupports.merge(item, sign, Integer::sum) == 0) {
+            this.negativeSupports.remove(item);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package algorithm;
+
+/**
+ * A set of long values stored in an open-addressing hash table with linear probing, so that no boxed value
+ * or entry object is allocated when a value is added, looked up or removed.
+ * Removal shifts the following entries of the probe sequence back, so the table never holds deleted markers.
+ */
+public class LongHashSet {
+    private static final long EMPTY = 0; // Marks a free slot; the value 0 itself is tracked by containsZero.
+
+    private long[] values;
+    private int size;          // Number of values stored in the table (excluding 0).
+    private boolean containsZero;
+
+    /**
+     * Constructs an empty set able to hold the given number of values without growing.
+     *
+     * @param expectedSize the expected number of values.
+     */
+    public LongHashSet(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) capacity *= 2;
+        this.values = new long[capacity];
+    }
+
+    /**
+     * Tells whether the set contains a value.
+     *
+     * @param value the value.
+     * @return true if the value is in the set.
+     */
+    public boolean contains(long value) {
+        if (value == EMPTY) return this.containsZero;
+        int mask = this.values.length - 1;
+        for (int slot = hash(value) & mask; this.values[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (this.values[slot] == value) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds a value to the set.
+     *
+     * @param value the value.
+     * @return true if the value was not already in the set.
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            boolean added = !this.containsZero;
+            this.containsZero = true;
+            return added;
+        }
+        int mask = this.values.length - 1;
+        int slot = hash(value) & mask;
+        while (this.values[slot] != EMPTY) {
+            if (this.values[slot] == value) return false;
+            slot = (slot + 1) & mask;
+        }
+        this.values[slot] = value;
+        this.size++;
+        if (this.size * 2 > this.values.length) this.grow();
+        return true;
+    }
+
+    /**
+     * Removes a value from the set.
+     *
+     * @param value the value.
+     * @return true if the value was in the set.
+     */
+    public boolean remove(long value) {
+        if (value == EMPTY) {
+            boolean removed = this.containsZero;
+            this.containsZero = false;
+            return removed;
+        }
+        int mask = this.values.length - 1;
+        int slot = hash(value) & mask;
+        while (this.values[slot] != value) {
+            if (this.values[slot] == EMPTY) return false;
+            slot = (slot + 1) & mask;
+        }
+        // Shift back the entries whose probe sequence crosses the freed slot.
+        int free = slot;
+        for (int next = (free + 1) & mask; this.values[next] != EMPTY; next = (next + 1) & mask) {
+            int home = hash(this.values[next]) & mask;
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                this.values[free] = this.values[next];
+                free = next;
+            }
+        }
+        this.values[free] = EMPTY;
+        this.size--;
+        return true;
+    }
+
+    /**
+     * Returns the number of values in the set.
+     *
+     * @return the size of the set.
+     */
+    public int size() {
+        return this.size + (this.containsZero ? 1 : 0);
+    }
+
+    /**
+     * Doubles the capacity of the table.
+     */
+    private void grow() {
+        long[] oldValues = this.values;
+        this.values = new long[oldValues.length * 2];
+        int mask = this.values.length - 1;
+        for (long value : oldValues) {
+            if (value == EMPTY) continue;
+            int slot = hash(value) & mask;
+            while (this.values[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            this.values[slot] = value;
+        }
+    }
+
+    private static int hash(long value) {
+        long mixed = value * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
@@ -1,7 +1,11 @@
 package algorithm;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         // Define dataset file paths
         String filepath1 = "src/main/java/dataset/retail.txt"; // Currently selected dataset
         String filepath2 = "src/main/java/dataset/ecommerce.txt";
@@ -13,6 +17,16 @@ public class Main {
         int maxPer = 200; // Maximum period constraint for itemsets
         float threshold = 0.001f;
 
+        // With "--serve", answer top-K queries over time ranges read from the standard input instead
+        // (see RangeQueryService), with the exact projected-database search so that the queries are seeded.
+        if (args.length > 0 && args[0].equals("--serve")) {
+            RangeQueryService service = new RangeQueryService(filepath1, k, maxPer, threshold);
+            service.setProjectedMode(true);
+            service.load();
+            service.serve(new BufferedReader(new InputStreamReader(System.in)), System.out);
+            return;
+        }
+
         // Initialize the performance evaluator with the selected dataset
         TopKPerformanceEvaluator evaluator = new TopKPerformanceEvaluator(filepath1, k, maxPer, threshold);
 
@@ -0,0 +1,1461 @@
+package algorithm;
+
+import lombok.Data;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The MiningEngine class mines the top-K short time period itemsets of a transaction list for one or more
+ * utility measures (see UtilityMeasure): the expected utility of STP-HUPI, the raw utility of STP-HUI, or both.
+ * It holds the search shared by both miners: the TWU filtering and recoding of the items, the utility-lists and
+ * tid bitmaps, the tree growth with dynamic threshold raising, and the projected-database (EFIM-style) search.
+ * Every measure keeps its own top-K list and minUtil threshold. When several measures are mined (joint mode),
+ * a single traversal serves all of them: a candidate is only pruned when it would be pruned for every measure,
+ * so each branch is checked against the weakest threshold, and an itemset is offered to the top-K list of every
+ * measure whose constraints it satisfies. The projected-database search is exhaustive, so its joint results equal
+ * the separate ones; the default tree growth is a heuristic, so extra branches kept for one measure may also
+ * improve the list of the other.
+ * The same mechanism serves parameter sweeps (see sweep): one top-K list is kept for every maxPer value of the
+ * sweep, and an itemset is only offered to the lists whose maxPer it satisfies.
+ */
+@Data
+public class MiningEngine {
+    private static final int MAX_PAIR_ITEMS = 256; // Items whose pairs are summed before the search, at most.
+
+    // --------------------------- Fields ---------------------------
+    private List<Transaction> transactions;      // The list of transactions to process.
+    private TransactionDatabase database;        // Columnar store of the transactions being mined.
+    private int maxPer;                          // Maximum allowed period for an itemset.
+    private float threshold;                     // Initial minUtil as a share of the total utility.
+    private int dbUtil;                          // Total utility of the transactions, see initialMinUtil.
+    private int k;                               // Current top-K value.
+    private UtilityMeasure[] measures;           // Measures ranked by the search.
+    private int[] sweepMaxPers;                  // maxPer values of a parameter sweep (null = maxPer only).
+    private Ranking[] rankings;                  // Top-K list and threshold of every measure and maxPer value.
+    private boolean expectedUtilityNeeded;       // Whether some measure ranks the expected utility.
+    private ItemStatistics itemStatistics;       // Item statistics of the transactions, kept up to date by append.
+    private List<List<Integer>> seedItemsets;    // Itemsets evaluated and offered before the search, if any.
+    private boolean[] searchedItems;             // Dense item IDs the search may extend with (null = all), see append.
+    private int[] originalItems;                 // Original item of every dense item ID.
+    private Map<Integer, Integer> itemCodes;     // Dense item ID of every item kept by the TWU filter.
+    private long[] twu;                          // Transaction-weighted utility of every dense item ID.
+    private long[] posUtil;                      // Positive utility of every dense item ID.
+    private UtilityList[] itemUtilityLists;      // Utility-lists of single items, by dense item ID.
+    private TidBitmap[] itemTidBitmaps;          // Tid bitmaps of single items on dense windows (null otherwise).
+    private float priu;                          // Maximum PRIU of the window, computed once.
+    private float pliuE;                         // Maximum PLIU_E of the window, computed once.
+    private CooccurrenceMatrix cooccurrences;    // Utility bounds of the item pairs (EUCS), tree growth only.
+    private long pairPrunedCandidates;           // Extensions pruned by the pair bounds.
+    private boolean projectedMode;               // Mine with projected and merged transactions (EFIM-style).
+    private int parallelism = 1;                 // Worker threads of the projected-database search (1 = sequential).
+    private int parallelDepth = 1;               // Itemset sizes below which sub-trees are forked as parallel tasks.
+    private boolean buildSearchTree;             // Also build the explored search tree (see searchTree).
+    private SearchTreeNode searchTree;           // Root of the explored search tree of the last run, if requested.
+    private double runTime; // Runtime of the last run.
+    private double memoryUsed;  // Memory usage of the last run.
+
+    // --------------------------- Constructor ---------------------------
+
+    /**
+     * Constructs a MiningEngine instance with the specified transactions, top-K value, maximum period and measures.
+     *
+     * @param transactions the list of transactions to process.
+     * @param k the top-K parameter.
+     * @param maxPer the maximum allowed period.
+     * @param threshold the initial minUtil as a share of the total utility of the transactions.
+     * @param measures the measures to rank, at least one.
+     */
+    public MiningEngine(List<Transaction> transactions, int k, int maxPer, float threshold, UtilityMeasure... measures) {
+        if (measures.length == 0) throw new IllegalArgumentException("At least one utility measure is required");
+        this.transactions = new ArrayList<>(transactions);
+        this.k = k;
+        this.maxPer = maxPer;
+        this.threshold = threshold;
+        this.measures = measures.clone();
+        this.expectedUtilityNeeded = Arrays.asList(measures).contains(UtilityMeasure.EXPECTED_UTILITY);
+    }
+
+    /**
+     * Sets the item statistics of the transactions, maintained by the caller instead of computed by another pass
+     * (see SlidingWindowMiner and RangeQueryService). They are copied, since append updates the statistics of the
+     * engine while the caller keeps its own for other transactions.
+     *
+     * @param itemStatistics the statistics of the transactions, or null to compute them on the first run.
+     */
+    public void setItemStatistics(ItemStatistics itemStatistics) {
+        this.itemStatistics = itemStatistics == null ? null : new ItemStatistics();
+        if (itemStatistics != null) this.itemStatistics.addAll(itemStatistics);
+    }
+
+    private int calculateDbUtil() {
+        return Arrays.stream(this.database.getTransactionUtilities(), 0, this.database.size()).sum();
+    }
+
+    /**
+     * Creates an empty top-K list for every measure and every maxPer value, with the initial minUtil.
+     */
+    private void initialMinUtil() {
+        int[] maxPers = this.sweepMaxPers == null ? new int[]{this.maxPer} : this.sweepMaxPers;
+        this.rankings = new Ranking[this.measures.length * maxPers.length];
+        for (int m = 0; m < this.measures.length; m++) {
+            for (int p = 0; p < maxPers.length; p++) {
+                this.rankings[m * maxPers.length + p] = new Ranking(this.measures[m], maxPers[p], this.k,
+                        this.dbUtil * this.threshold);
+            }
+        }
+    }
+
+    /**
+     * Returns the threshold the shared pruning steps (TWU, pair bounds, PSU) are checked against:
+     * the lowest minUtil of the measures, since a candidate may only be pruned when no measure needs it.
+     *
+     * @return the weakest minUtil.
+     */
+    private float weakestMinUtil() {
+        float minUtil = this.rankings[0].minUtil;
+        for (int m = 1; m < this.rankings.length; m++) {
+            minUtil = Math.min(minUtil, this.rankings[m].minUtil);
+        }
+        return minUtil;
+    }
+
+    // --------------------------- THRESHOLD RAISING STRATEGIES ---------------------------
+
+    /**
+     * Calculates the maximum Positive Remaining Item Utility (PRIU) over all transactions.
+     * For each transaction, it sums the positive utilities (from posUtil) of all items and returns the maximum sum.
+     *
+     * @return the maximum PRIU value.
+     */
+    private float calculatePRIU() {
+        return (float) IntStream.range(0, this.database.size())
+                .mapToDouble(this::positiveRemainingItemUtility)
+                .max().orElse(0);
+    }
+
+    /**
+     * Returns the PRIU of a transaction: the sum of the positive utilities of its items.
+     *
+     * @param tid the transaction index.
+     * @return the PRIU of the transaction.
+     */
+    private double positiveRemainingItemUtility(int tid) {
+        return IntStream.range(this.database.start(tid), this.database.end(tid))
+                .mapToDouble(i -> this.posUtil[this.database.getItems()[i]])
+                .sum();
+    }
+
+    /**
+     * Computes the Positive Leaf Itemset Utility Exact strategy (PLIU_E).
+     * For each transaction, it sorts items by positive utility and sums the top two values,
+     * then returns the maximum sum across all transactions.
+     *
+     * @return the maximum PLIU_E value.
+     */
+    private float calculatePLIU_E() {
+        return (float) IntStream.range(0, this.database.size())
+                .mapToDouble(this::positiveLeafItemsetUtility)
+                .max().orElse(0);
+    }
+
+    /**
+     * Returns the PLIU_E of a transaction: the sum of the two lowest positive utilities of its items.
+     *
+     * @param tid the transaction index.
+     * @return the PLIU_E of the transaction.
+     */
+    private double positiveLeafItemsetUtility(int tid) {
+        return IntStream.range(this.database.start(tid), this.database.end(tid))
+                .mapToDouble(i -> this.posUtil[this.database.getItems()[i]])
+                .sorted()
+                .limit(2)
+                .sum();
+    }
+
+    /**
+     * Computes the PRIU and PLIU_E bounds of the window once the items are recoded. Both only depend on the
+     * transactions and on the positive utility of the items, which do not change during the search
+     * (see extendInPlace for their update when a transaction is appended).
+     */
+    private void computeThresholdBounds() {
+        this.priu = this.calculatePRIU();
+        this.pliuE = this.calculatePLIU_E();
+    }
+
+    /**
+     * Dynamically updates the minUtil threshold of a measure based on its current top-K itemsets.
+     * The new threshold is computed using a weighted combination of the lowest value among the current top-K
+     * itemsets and upper-bound measures (PRIU, PLIU_E, and PLIU_LB, the lowest value of the full list). If the
+     * computed dynamic threshold exceeds the current minUtil by at least 10%, minUtil is updated.
+     * Every input is read in constant time.
+     *
+     * @param ranking the top-K list and threshold of the measure.
+     */
+    private void updateMinUtil(Ranking ranking) {
+        if (ranking.topKItemsets.isFull() && ranking.topKItemsets.peek() != null) {
+            float newMinUtil = (float) ranking.measure.value(ranking.topKItemsets.peek());
+
+            // Use the threshold raising strategies to update minUtil.
+            // PRIU and PLIU_E only depend on the window, so they are computed once (see computeThresholdBounds).
+            float priu = this.priu * 0.3f;
+            float pliuE = this.pliuE * 0.3f;
+            float pliuLB = newMinUtil;
+            float dynamicThreshold = (newMinUtil * 0.4f) + (Math.min(priu, Math.min(pliuE, pliuLB)) * 0.6f);
+
+            if (dynamicThreshold > ranking.minUtil * 1.1f) {
+                ranking.minUtil = dynamicThreshold;
+            }
+        }
+    }
+
+    // --------------------------- UTILITY & OCCURRENCE CALCULATIONS ---------------------------
+
+    /**
+     * Returns the total expected utility of an itemset from its utility-list, or 0 if no measure ranks it.
+     * For each transaction that contains the itemset, the expected utility is the raw utility multiplied by
+     * a probability based on positive and negative utility normalization. The expected utilities are written to
+     * the reusable buffer of the search stack and summed there, so no object is allocated per transaction.
+     *
+     * @param utilityList the utility-list of the itemset.
+     * @param stack the search stack providing the buffer.
+     * @return the total expected utility.
+     */
+    private float getTotalExpectedUtility(UtilityList utilityList, SearchStack stack) {
+        if (!this.expectedUtilityNeeded) return 0f;
+        double[] expectedUtilities = stack.getBuffer(utilityList.getSize());
+        for (int i = 0; i < utilityList.getSize(); i++) {
+            int utility = utilityList.getUtilities()[i];
+
+            // Compute positive and negative components for normalization.
+            float ptu = utilityList.getPtus()[i];
+            float ntu = utilityList.getAntus()[i];
+            float probability = 0f;
+
+            if (utility > 0 && ptu > 0) {
+                probability = utility / ptu;
+            } else if (utility < 0 && ntu > 0) {
+                probability = (-utility) / ntu;
+            }
+            float expectedUtility = utility * probability;
+            expectedUtilities[i] = expectedUtility;
+        }
+        return (float) Arrays.stream(expectedUtilities, 0, utilityList.getSize()).sum();
+    }
+
+    /**
+     * Calculates the maximum period for an itemset based on the gaps between consecutive transaction IDs
+     * in which the itemset occurs. The transaction database is in ascending ID order, so the IDs are read
+     * in order from the utility-list without sorting.
+     *
+     * @param utilityList the utility-list of the itemset.
+     * @return the maximum period (largest gap) between consecutive occurrences.
+     */
+    private int calculateMaxPeriod(UtilityList utilityList) {
+        if (utilityList.getSize() < 2) return 0;
+        int[] ids = this.database.getIds();
+        int maxPeriod = ids[utilityList.getTids()[0]];
+        for (int i = 1; i < utilityList.getSize(); i++) {
+            maxPeriod = Math.max(maxPeriod, ids[utilityList.getTids()[i]] - ids[utilityList.getTids()[i - 1]]);
+        }
+        return maxPeriod;
+    }
+
+    /**
+     * Returns the total raw utility of an itemset by summing the utilities of its utility-list.
+     *
+     * @param utilityList the utility-list of the itemset.
+     * @return the total raw utility.
+     */
+    private int getTotalUtility(UtilityList utilityList) {
+        int utility = 0;
+        for (int i = 0; i < utilityList.getSize(); i++) {
+            utility += utilityList.getUtilities()[i];
+        }
+        return utility;
+    }
+
+    /**
+     * Tells whether an itemset satisfies the utility constraints of a measure: a non-negative utility
+     * and a value of at least the minUtil of the measure.
+     *
+     * @param ranking the top-K list and threshold of the measure.
+     * @param utility the raw utility of the itemset.
+     * @param expectedUtility the expected utility of the itemset.
+     * @return true if the itemset qualifies for the measure.
+     */
+    private boolean qualifies(Ranking ranking, int utility, float expectedUtility) {
+        return utility >= 0 && (float) ranking.measure.value(utility, expectedUtility) >= ranking.minUtil;
+    }
+
+    /**
+     * Tells whether an itemset satisfies the utility constraints of at least one measure.
+     *
+     * @param utility the raw utility of the itemset.
+     * @param expectedUtility the expected utility of the itemset.
+     * @return true if the itemset qualifies for some measure.
+     */
+    private boolean qualifiesForAny(int utility, float expectedUtility) {
+        for (Ranking ranking : this.rankings) {
+            if (this.qualifies(ranking, utility, expectedUtility)) return true;
+        }
+        return false;
+    }
+
+    // --------------------------- PRUNING STRATEGY ---------------------------
+
+    /**
+     * Removes the items whose transaction-weighted utility (TWU) is below the current minUtil threshold and recodes
+     * the remaining items as dense IDs 0..n-1 in descending TWU order (ties broken by item), so that every
+     * per-item table is a flat array indexed by ID and the processing order of the items is the order of their IDs.
+     * In the projected mode, the items having a negative utility in some transaction are placed after all the
+     * other items (FHN ordering), so that extensions with such items only meet negative items afterwards and
+     * the bounds of the projected-database search stay tight; the default search keeps the plain TWU order.
+     * The itemsets are mapped back to the original items only when the results are collected.
+     * The pair bounds of the tree growth (see CooccurrenceMatrix) are then built over the recoded transactions;
+     * the projected-database search does not use them.
+     *
+     * @param statistics the TWU, positive utility and signs of the original items.
+     */
+    private void recodeItems(ItemStatistics statistics) {
+        Map<Integer, Long> twu = statistics.getTwu();
+        Map<Integer, Long> posUtil = statistics.getPosUtil();
+        float minUtil = this.weakestMinUtil();
+        this.originalItems = twu.entrySet().stream()
+                .filter(entry -> entry.getValue() >= minUtil)
+                .sorted((a, b) -> {
+                    if (this.projectedMode) {
+                        int bySign = Boolean.compare(statistics.isNegative(a.getKey()),
+                                statistics.isNegative(b.getKey()));
+                        if (bySign != 0) return bySign;
+                    }
+                    int byTWU = Long.compare(b.getValue(), a.getValue());
+                    return byTWU != 0 ? byTWU : Integer.compare(a.getKey(), b.getKey());
+                })
+                .mapToInt(Map.Entry::getKey)
+                .toArray();
+        Map<Integer, Integer> codes = new HashMap<>();
+        this.itemCodes = codes;
+        this.twu = new long[this.originalItems.length];
+        this.posUtil = new long[this.originalItems.length];
+        for (int code = 0; code < this.originalItems.length; code++) {
+            int item = this.originalItems[code];
+            codes.put(item, code);
+            this.twu[code] = twu.get(item);
+            this.posUtil[code] = posUtil.getOrDefault(item, 0L);
+        }
+        this.database = this.database.recode(item -> codes.getOrDefault(item, -1));
+        this.cooccurrences = this.projectedMode ? null : new CooccurrenceMatrix(this.database, this.originalItems.length);
+    }
+
+    // --------------------------- PSU (POSITIVE SUB-TREE UTILITY) ---------------------------
+
+    /**
+     * Calculates the Positive Sub-tree Utility (PSU) for a given prefix and candidate extension item.
+     * PSU is defined as the sum of:
+     * - the utility of the prefix,
+     * - the positive part of the candidate extension item's utility,
+     * - the remaining positive utility of items not in the prefix or the extension.
+     * The transactions containing both the prefix and the extension item are found by joining
+     * the prefix utility-list with the utility-list of the extension item.
+     *
+     * @param prefixList the utility-list of the prefix.
+     * @param extensionItem the candidate item to extend the prefix.
+     * @return the computed PSU value.
+     */
+    private int calculatePSU(UtilityList prefixList, int extensionItem) {
+        UtilityList extensionList = this.itemUtilityLists[extensionItem];
+        int maxPSU = 0;
+        int i = 0;
+        int j = 0;
+        while (i < prefixList.getSize() && j < extensionList.getSize()) {
+            int prefixTid = prefixList.getTids()[i];
+            int extensionTid = extensionList.getTids()[j];
+            if (prefixTid < extensionTid) {
+                i++;
+            } else if (prefixTid > extensionTid) {
+                j++;
+            } else {
+                int prefixUtility = prefixList.getUtilities()[i];
+                int adjustedExtensionUtility = Math.max(extensionList.getUtilities()[j], 0);
+                int remainingPositiveUtility = prefixList.getRemainingUtilities()[i] - adjustedExtensionUtility;
+                int computedPSU = prefixUtility + adjustedExtensionUtility + remainingPositiveUtility;
+                // Track max PSU instead of sum
+                maxPSU = Math.max(maxPSU, computedPSU);
+                i++;
+                j++;
+            }
+        }
+        return maxPSU;
+    }
+
+    // --------------------------- TWU COMPUTING ---------------------------
+
+    /**
+     * Computes the Transaction-Weighted Utility (TWU) and the positive utility of each item (see ItemStatistics),
+     * then keeps and recodes the promising items (see recodeItems). The pass over the transactions is skipped
+     * when the statistics are already known: maintained by the caller (see SlidingWindowMiner), or by append.
+     */
+    private void computeTWU() {
+        if (this.itemStatistics == null) this.itemStatistics = ItemStatistics.of(this.database);
+        this.recodeItems(this.itemStatistics);
+    }
+
+    // --------------------------- UTILITY-LIST CONSTRUCTION ---------------------------
+
+    /**
+     * Builds the utility-list of every remaining item in a single pass over the recoded transactions.
+     * The PTU and ANTU of each transaction are precomputed by the transaction database and shared by all
+     * of its entries, so that no further scan of the transactions is needed during the tree growth.
+     * When the tree growth runs on a dense window (see TidBitmap), the tid bitmap of every item is built as well.
+     */
+    private void buildUtilityLists() {
+        int[] items = this.database.getItems();
+        int[] utilities = this.database.getUtilities();
+        this.itemUtilityLists = new UtilityList[this.originalItems.length];
+        for (int item = 0; item < this.originalItems.length; item++) {
+            this.itemUtilityLists[item] = new UtilityList(16);
+        }
+        for (int tid = 0; tid < this.database.size(); tid++) {
+            int ptu = this.database.getPtus()[tid];
+            int antu = this.database.getAntus()[tid];
+
+            for (int i = this.database.start(tid); i < this.database.end(tid); i++) {
+                int utility = utilities[i];
+                this.itemUtilityLists[items[i]].add(tid, utility, ptu - Math.max(utility, 0), ptu, antu);
+            }
+        }
+
+        this.buildTidBitmaps();
+    }
+
+    /**
+     * Builds the tid bitmap of every item from its utility-list when the tree growth uses them (see usesTidBitmaps),
+     * and drops the bitmaps otherwise.
+     */
+    private void buildTidBitmaps() {
+        this.itemTidBitmaps = null;
+        if (this.usesTidBitmaps()) {
+            this.itemTidBitmaps = new TidBitmap[this.originalItems.length];
+            for (int item = 0; item < this.originalItems.length; item++) {
+                this.itemTidBitmaps[item] = TidBitmap.of(this.itemUtilityLists[item], this.database.size());
+            }
+        }
+    }
+
+    /**
+     * Tells whether the tree growth keeps the transactions of every itemset as a tid bitmap: only on dense windows,
+     * and never in projected mode, whose search does not read them.
+     *
+     * @return true if the tid bitmaps are built and maintained.
+     */
+    private boolean usesTidBitmaps() {
+        return !this.projectedMode && TidBitmap.isDense(this.database, this.originalItems.length);
+    }
+
+    // --------------------------- ITEMSET GENERATION AND TREE GROWTH ---------------------------
+
+    /**
+     * Generates candidate high-utility itemsets using a tree-based approach.
+     * Unique items are processed in descending TWU order, which is the order of their dense IDs. For each unique item,
+     * a single-item itemset is initialized and extended recursively using the treeGrowth method.
+     * The search runs on a reusable stack of frames (see SearchStack); the explored tree itself is only built
+     * when buildSearchTree is set.
+     */
+    private void generateItemsets() {
+        SearchStack stack = new SearchStack();
+        this.searchTree = this.buildSearchTree ? new SearchTreeNode(new ArrayList<>(), 0, 0f, 0) : null;
+
+        // For each unique item, initialize a single-item itemset and grow the tree.
+        for (int item = 0; item < this.originalItems.length; item++) {
+            UtilityList utilityList = this.itemUtilityLists[item];
+            if (utilityList.getSize() > 1 && this.isSearched(item)) {
+                int maxPeriod = this.calculateMaxPeriod(utilityList);
+                if (maxPeriod > this.maxPer) continue;
+
+                int utility = this.getTotalUtility(utilityList);
+                float expectedUtility = this.getTotalExpectedUtility(utilityList, stack);
+                if (!this.qualifiesForAny(utility, expectedUtility)) continue;
+
+                // Push the single-item itemset and extend it recursively.
+                stack.push(item, utilityList, this.itemTidBitmaps == null ? null : this.itemTidBitmaps[item],
+                        utility, expectedUtility, maxPeriod);
+                this.treeGrowth(stack, this.addSearchTreeNode(this.searchTree, stack));
+                stack.pop();
+            }
+        }
+    }
+
+    /**
+     * Recursively grows the search tree by extending the itemset on top of the search stack.
+     * For each candidate extension, it recomputes occurrences and utility measures,
+     * and prunes branches that do not meet the required thresholds of any measure.
+     *
+     * @param stack the search stack, holding the current itemset and its measures.
+     * @param node the search tree node of the current itemset, or null if the tree is not built.
+     */
+    private void treeGrowth(SearchStack stack, SearchTreeNode node) {
+        // Process and potentially add the current itemset to the top-K lists.
+        this.processCurrentItemset(stack);
+
+        // Restrict candidate extensions to transactions that contain the current itemset.
+        // Item IDs follow the TWU order, so the candidates are visited in ascending ID order.
+        UtilityList utilityList = stack.getUtilityList();
+        TidBitmap tidBitmap = stack.getTidBitmap();
+        BitSet extensionItems = stack.getCandidates(this.originalItems.length);
+        for (int i = 0; i < utilityList.getSize(); i++) {
+            int tid = utilityList.getTids()[i];
+            for (int j = this.database.start(tid); j < this.database.end(tid); j++) {
+                extensionItems.set(this.database.getItems()[j]);
+            }
+        }
+        for (int i = 0; i < stack.getDepth(); i++) {
+            extensionItems.clear(stack.getItem(i));
+        }
+        if (this.searchedItems != null) {
+            for (int item = extensionItems.nextSetBit(0); item >= 0; item = extensionItems.nextSetBit(item + 1)) {
+                if (!this.searchedItems[item]) extensionItems.clear(item);
+            }
+        }
+
+        int lastItem = stack.getLastItem();
+        for (int item = extensionItems.nextSetBit(0); item >= 0; item = extensionItems.nextSetBit(item + 1)) {
+            // Reject the extension from the pair bound alone, before any join.
+            if (this.cooccurrences.getUtility(lastItem, item) < this.weakestMinUtil()) {
+                this.pairPrunedCandidates++;
+                continue;
+            }
+            // On dense windows, the AND of the tid bitmaps gives the support and the period of the extension,
+            // so a candidate occurring only once or breaking maxPer is rejected before the PSU scan, and the
+            // join of the survivors no longer checks the period.
+            TidBitmap newTidBitmap = null;
+            if (tidBitmap != null) {
+                newTidBitmap = tidBitmap.and(this.itemTidBitmaps[item], this.database.getIds(), this.maxPer, this.maxPer);
+                if (newTidBitmap == null || newTidBitmap.cardinality() < 2) continue;
+            }
+            int psu = this.calculatePSU(utilityList, item);
+            if (psu >= this.weakestMinUtil()) {
+                // Join the prefix utility-list with the item's utility-list to get the new occurrences,
+                // in the join buffer of the next depth, which is only copied if the extension is pushed.
+                // Without bitmaps, the join gives up at the first period above maxPer, so that such candidates
+                // stop early.
+                UtilityList newUtilityList;
+                int newMaxPeriod;
+                if (newTidBitmap != null) {
+                    newUtilityList = utilityList.join(this.itemUtilityLists[item], stack.getJoinBuffer());
+                    newMaxPeriod = newTidBitmap.maxPeriod();
+                } else {
+                    newUtilityList = utilityList.join(this.itemUtilityLists[item],
+                            this.database.getIds(), this.maxPer, this.maxPer, stack.getJoinBuffer());
+                    if (newUtilityList == null || newUtilityList.getSize() < 2) continue;
+                    newMaxPeriod = this.calculateMaxPeriod(newUtilityList);
+                }
+                int newUtility = this.getTotalUtility(newUtilityList);
+                if (newUtility < 0) continue;
+                float newTotalExpUtil = this.getTotalExpectedUtility(newUtilityList, stack);
+                if (!this.qualifiesForAny(newUtility, newTotalExpUtil)) continue;
+
+                // Push the extended itemset and extend it recursively.
+                stack.push(item, newUtilityList.copy(), newTidBitmap, newUtility, newTotalExpUtil, newMaxPeriod);
+                this.treeGrowth(stack, this.addSearchTreeNode(node, stack));
+                stack.pop();
+            }
+        }
+    }
+
+    /**
+     * Offers the itemset on top of the search stack to the top-K list of every measure (and maxPer value) whose
+     * period and utility constraints it satisfies. After each offer, the dynamic minUtil threshold of the measure is
+     * updated. The method is synchronized so that the workers of the parallel projected-database search share the
+     * top-K lists.
+     * The Itemset object is only built when the itemset enters a list.
+     *
+     * @param stack the search stack, holding the candidate itemset and its measures.
+     */
+    private synchronized void processCurrentItemset(SearchStack stack) {
+        long canonicalKey = stack.getItemsetKey();
+        for (Ranking ranking : this.rankings) {
+            if (stack.getMaxPeriod() > ranking.maxPer) continue;
+            if (!this.qualifies(ranking, stack.getUtility(), stack.getExpectedUtility())) continue;
+            if (ranking.topKItemsets.contains(canonicalKey)) continue;
+            if (ranking.topKItemsets.accepts(ranking.measure.value(stack.getUtility(), stack.getExpectedUtility()))) {
+                ranking.topKItemsets.offer(ranking.measure.toItemset(stack), canonicalKey);
+            }
+            this.raiseThresholds(ranking);
+        }
+    }
+
+    /**
+     * Publishes the lowest value of a full top-K list and updates the dynamic minUtil threshold of its measure.
+     *
+     * @param ranking the top-K list and threshold of the measure.
+     */
+    private void raiseThresholds(Ranking ranking) {
+        // A list of K = 0 is always full but never holds an itemset to read the threshold from.
+        if (ranking.topKItemsets.isFull() && ranking.topKItemsets.peek() != null) {
+            ranking.lowestTopKUtil = (float) ranking.measure.value(ranking.topKItemsets.peek());
+        }
+        this.updateMinUtil(ranking);
+    }
+
+    /**
+     * Evaluates the seed itemsets exactly in the transactions being mined and offers them to the top-K lists before
+     * the search starts, like the itemsets found by the search (see offerExactItemset), so that the search prunes
+     * against their values from its first node on. A seed containing an item removed by the TWU filter cannot reach
+     * minUtil, so it is skipped.
+     *
+     * @param stack the search stack providing the buffer of the expected utilities.
+     */
+    private void offerSeedItemsets(SearchStack stack) {
+        if (this.seedItemsets == null) return;
+        for (List<Integer> seed : this.seedItemsets) {
+            List<Integer> items = new ArrayList<>(seed.size());
+            for (int item : seed) {
+                Integer code = this.itemCodes.get(item);
+                if (code == null) break;
+                items.add(code);
+            }
+            if (!items.isEmpty() && items.size() == seed.size()) this.offerExactItemset(items, stack);
+        }
+    }
+
+    /**
+     * Evaluates an itemset exactly in the transactions being mined and offers it to the top-K list of every measure
+     * (and maxPer value) whose constraints it satisfies. Its utility-list is joined from those of its items, so its
+     * utility, expected utility and maximum period are the values the search would compute; an itemset occurring
+     * less than twice is not reported by the tree growth, so it is skipped. The itemsets found again by the search
+     * are recognized by their canonical key and not offered twice.
+     *
+     * @param items the dense item IDs of the itemset.
+     * @param stack the search stack providing the buffer of the expected utilities.
+     */
+    private void offerExactItemset(List<Integer> items, SearchStack stack) {
+        UtilityList utilityList = this.itemUtilityLists[items.get(0)];
+        for (int i = 1; i < items.size() && utilityList.getSize() > 1; i++) {
+            utilityList = utilityList.join(this.itemUtilityLists[items.get(i)]);
+        }
+        if (utilityList.getSize() < 2) return;
+        int maxPeriod = this.calculateMaxPeriod(utilityList);
+        int utility = this.getTotalUtility(utilityList);
+        if (utility < 0) return;
+        float expectedUtility = this.getTotalExpectedUtility(utilityList, stack);
+
+        long canonicalKey = TopKCollector.itemsetKey(items.stream().mapToInt(Integer::intValue).toArray(), items.size());
+        for (Ranking ranking : this.rankings) {
+            if (maxPeriod > ranking.maxPer) continue;
+            if (!this.qualifies(ranking, utility, expectedUtility)) continue;
+            if (ranking.topKItemsets.contains(canonicalKey)) continue;
+            if (ranking.topKItemsets.accepts(ranking.measure.value(utility, expectedUtility))) {
+                ranking.topKItemsets.offer(ranking.measure.toItemset(items, utility, expectedUtility, maxPeriod),
+                        canonicalKey);
+            }
+            this.raiseThresholds(ranking);
+        }
+    }
+
+    /**
+     * Starts the search of every full top-K list at its K-th value, once the itemsets known before the search have
+     * been offered (see offerSeedItemsets and offerShortItemsets): an itemset below it can never enter the list,
+     * so the results are unchanged (with the exhaustive projected-database search). Afterwards, minUtil only rises
+     * through updateMinUtil.
+     */
+    private void startAtLowestTopKValues() {
+        for (Ranking ranking : this.rankings) {
+            if (ranking.topKItemsets.isFull()) ranking.minUtil = Math.max(ranking.minUtil, ranking.lowestTopKUtil);
+        }
+    }
+
+    // --------------------------- PRE-MINING THRESHOLD RAISING ---------------------------
+
+    /**
+     * Raises the thresholds before the search from exact short itemsets, in the spirit of the RIU and CUD strategies:
+     * every single item, and the pairs of the items with the highest positive utility, are evaluated exactly from
+     * their utility-lists and offered to the top-K lists like the itemsets found by the search, with their period
+     * checked against maxPer (see offerExactItemset). They are genuine itemsets, so unlike the weighted estimate of
+     * updateMinUtil, the resulting thresholds are safe, and the search starts at the K-th value of every full list.
+     * The pairs are chosen in one scan over the transactions: the utility and an estimated expected utility of the
+     * pairs of the 2K items (at most MAX_PAIR_ITEMS) with the highest positive utility are summed there, and the
+     * K best pairs of every measure are evaluated exactly.
+     *
+     * @param stack the search stack providing the buffer of the expected utilities.
+     */
+    private void offerShortItemsets(SearchStack stack) {
+        // The positive utility of an item bounds both its utility and its expected utility, so the items are
+        // visited by descending positive utility until no list can accept them anymore.
+        int[] items = IntStream.range(0, this.originalItems.length).boxed()
+                .sorted((a, b) -> Long.compare(this.posUtil[b], this.posUtil[a]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        for (int item : items) {
+            if (this.posUtil[item] < this.lowestProjectedMinUtil()) break;
+            this.offerExactItemset(Collections.singletonList(item), stack);
+        }
+
+        // Candidate items by descending positive utility, at most 2K of them.
+        int[] candidates = Arrays.copyOf(items, (int) Math.min(items.length, Math.min(2L * this.k, MAX_PAIR_ITEMS)));
+        if (candidates.length < 2) return;
+        int[] positions = new int[this.originalItems.length];
+        Arrays.fill(positions, -1);
+        for (int i = 0; i < candidates.length; i++) {
+            positions[candidates[i]] = i;
+        }
+
+        // Sum the utility and the estimated expected utility of every candidate pair (i < j, indexed i * n + j).
+        int n = candidates.length;
+        long[] pairUtilities = new long[n * n];
+        double[] pairExpectedUtilities = new double[n * n];
+        int[] present = new int[IntStream.range(0, this.database.size())
+                .map(tid -> this.database.end(tid) - this.database.start(tid)).max().orElse(0)]; // Candidate entries.
+        for (int tid = 0; tid < this.database.size(); tid++) {
+            int count = 0;
+            for (int i = this.database.start(tid); i < this.database.end(tid); i++) {
+                int position = positions[this.database.getItems()[i]];
+                if (position >= 0) present[count++] = i;
+            }
+            float ptu = this.database.getPtus()[tid];
+            for (int i = 0; i < count; i++) {
+                for (int j = i + 1; j < count; j++) {
+                    int first = positions[this.database.getItems()[present[i]]];
+                    int second = positions[this.database.getItems()[present[j]]];
+                    if (first == second) continue;
+                    int pair = Math.min(first, second) * n + Math.max(first, second);
+                    int utility = this.database.getUtilities()[present[i]] + this.database.getUtilities()[present[j]];
+                    pairUtilities[pair] += utility;
+                    if (utility > 0 && ptu > 0) pairExpectedUtilities[pair] += (double) utility * utility / ptu;
+                }
+            }
+        }
+
+        // Evaluate exactly the K best pairs of every measure, selected with a min-heap of K pairs.
+        Set<Integer> pairs = new LinkedHashSet<>();
+        for (UtilityMeasure measure : this.measures) {
+            double[] values = measure == UtilityMeasure.UTILITY
+                    ? Arrays.stream(pairUtilities).asDoubleStream().toArray() : pairExpectedUtilities;
+            PriorityQueue<Integer> bestPairs = new PriorityQueue<>(Comparator.comparingDouble(pair -> values[pair]));
+            for (int pair = 0; pair < n * n; pair++) {
+                if (pairUtilities[pair] <= 0) continue;
+                if (bestPairs.size() < this.k) {
+                    bestPairs.add(pair);
+                } else if (values[pair] > values[bestPairs.peek()]) {
+                    bestPairs.poll();
+                    bestPairs.add(pair);
+                }
+            }
+            pairs.addAll(bestPairs);
+        }
+        for (int pair : pairs) {
+            this.offerExactItemset(Arrays.asList(candidates[pair / n], candidates[pair % n]), stack);
+        }
+    }
+
+    // --------------------------- PROJECTED-DATABASE SEARCH ---------------------------
+
+    /**
+     * Generates the top-K itemsets with an EFIM-style search over projected databases.
+     * Items are processed in the order of their dense IDs (descending TWU, unless appended transactions changed it,
+     * see extendInPlace) and an itemset is only extended with items after its last item, so every itemset is visited
+     * once. Each level works only on the transactions projected
+     * onto the current prefix, in which transactions with identical remaining items are merged.
+     * When parallelism is above one, the sub-trees of the first parallelDepth levels are mined as tasks of a
+     * fork-join pool. Workers only prune sub-trees that cannot enter the final top-K lists, so the result equals
+     * the sequential one (itemsets tied with the K-th value may differ).
+     */
+    private void generateItemsetsProjected() {
+        // Convert every transaction into a projected transaction; its items are already in processing order.
+        // When the search is restricted (see append), only the transactions containing a searched item are needed:
+        // the bounds of a searched item only sum over the transactions containing it.
+        BitSet tids = new BitSet(this.database.size());
+        if (this.searchedItems == null) {
+            tids.set(0, this.database.size());
+        } else {
+            for (int item = 0; item < this.originalItems.length; item++) {
+                if (!this.searchedItems[item]) continue;
+                UtilityList utilityList = this.itemUtilityLists[item];
+                for (int i = 0; i < utilityList.getSize(); i++) {
+                    tids.set(utilityList.getTids()[i]);
+                }
+            }
+        }
+        List<ProjectedTransaction> projectedTransactions = new ArrayList<>(tids.cardinality());
+        for (int tid = tids.nextSetBit(0); tid >= 0; tid = tids.nextSetBit(tid + 1)) {
+            int start = this.database.start(tid);
+            int size = this.database.end(tid) - start;
+            int[] items = Arrays.copyOfRange(this.database.getItems(), start, start + size);
+            int[] utilities = Arrays.copyOfRange(this.database.getUtilities(), start, start + size);
+            int[] positiveSuffixUtilities = new int[size + 1];
+            for (int i = size - 1; i >= 0; i--) {
+                positiveSuffixUtilities[i] = positiveSuffixUtilities[i + 1] + Math.max(utilities[i], 0);
+            }
+            projectedTransactions.add(new ProjectedTransaction(items, utilities, positiveSuffixUtilities, 0, 0, 0, 1));
+        }
+
+        SearchStack stack = new SearchStack();
+        this.searchTree = this.buildSearchTree ? new SearchTreeNode(new ArrayList<>(), 0, 0f, 0) : null;
+        ProjectedDatabase database = new ProjectedDatabase(projectedTransactions);
+        if (this.parallelism > 1) {
+            // Sub-trees are forked as tasks when the search runs inside the pool.
+            ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+            try {
+                pool.invoke(ForkJoinTask.adapt(() -> this.projectedTreeGrowth(stack, database, this.searchTree)));
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            this.projectedTreeGrowth(stack, database, this.searchTree);
+        }
+    }
+
+    /**
+     * Recursively extends the itemset of the given node with the items of its projected database.
+     * Two bounds are computed per measure over the projected transactions only (FHN-style, with the items with
+     * negative utilities ordered last, see recodeItems; see UtilityMeasure for the bounds of each measure):
+     * - the local utility of an item bounds every extension of the prefix containing it. An item whose local
+     *   utility is below the threshold of every measure is removed from the databases projected for the sub-trees;
+     * - the sub-tree utility of an item bounds every itemset of its sub-tree. An item whose sub-tree utility is
+     *   below the threshold of every measure is pruned together with its whole sub-tree.
+     * Items supported by fewer than two transactions are pruned as well, since the support only decreases for
+     * supersets. The gaps between occurrences can shrink for supersets (an occurrence after a long gap may be
+     * lost), so an itemset exceeding maxPer is not reported but its sub-tree is still explored; only its
+     * first occurrence, which cannot move earlier, is used to prune the sub-tree.
+     * The pair bounds are not used here: the sub-tree bound only sums over the projected transactions,
+     * so it never exceeds the pair bound of the last prefix item and the extension.
+     *
+     * @param stack the search stack, holding the current itemset (empty for the root).
+     * @param database the database projected onto the current itemset.
+     * @param node the search tree node of the current itemset, or null if the tree is not built.
+     */
+    private void projectedTreeGrowth(SearchStack stack, ProjectedDatabase database, SearchTreeNode node) {
+        // Compute the support and the local and sub-tree utility bounds of every item in the projected database.
+        // The bounds only depend on the measure, so they are shared by the lists of all the maxPer values.
+        long[][] localUtilities = new long[UtilityMeasure.values().length][];
+        long[][] subtreeUtilities = new long[UtilityMeasure.values().length][];
+        for (UtilityMeasure measure : this.measures) {
+            localUtilities[measure.ordinal()] = new long[this.originalItems.length];
+            subtreeUtilities[measure.ordinal()] = new long[this.originalItems.length];
+        }
+        int[] supports = new int[this.originalItems.length];
+        for (ProjectedTransaction transaction : database.getTransactions()) {
+            int[] items = transaction.getItems();
+            for (UtilityMeasure measure : this.measures) {
+                long[] measureLocalUtilities = localUtilities[measure.ordinal()];
+                long[] measureSubtreeUtilities = subtreeUtilities[measure.ordinal()];
+                long localUtility = measure.localUtility(transaction);
+                for (int i = transaction.getOffset(); i < items.length; i++) {
+                    measureLocalUtilities[items[i]] += localUtility;
+                    measureSubtreeUtilities[items[i]] += measure.subtreeUtility(transaction, i);
+                }
+            }
+            for (int i = transaction.getOffset(); i < items.length; i++) {
+                supports[items[i]] += transaction.getSupport();
+            }
+        }
+
+        boolean[] secondaryItems = new boolean[this.originalItems.length];
+        for (int item = 0; item < this.originalItems.length; item++) {
+            secondaryItems[item] = supports[item] >= 2 && this.isSearched(item)
+                    && this.withinAnyBound(localUtilities, item);
+        }
+
+        List<ForkJoinTask<?>> subtrees = new ArrayList<>();
+        for (int item = 0; item < this.originalItems.length; item++) {
+            if (!secondaryItems[item] || !this.withinAnyBound(subtreeUtilities, item)) continue;
+
+            int extension = item;
+            if (stack.getDepth() < this.parallelDepth && ForkJoinTask.inForkJoinPool()) {
+                // A forked sub-tree runs on its own copy of the stack.
+                SearchStack forkedStack = stack.copy();
+                subtrees.add(ForkJoinTask.adapt(() ->
+                        this.extendProjected(forkedStack, database, secondaryItems, extension, subtreeUtilities, node)));
+            } else {
+                this.extendProjected(stack, database, secondaryItems, extension, subtreeUtilities, node);
+            }
+        }
+        ForkJoinTask.invokeAll(subtrees);
+    }
+
+    /**
+     * Extends the itemset of the given node with one item of its projected database, reports the extended
+     * itemset if it satisfies the constraints, and grows its sub-tree.
+     * The bound is checked again because the thresholds may have been raised since the item was selected
+     * (by earlier siblings, or by other workers in the parallel mode).
+     *
+     * @param stack the search stack, holding the current itemset (empty for the root).
+     * @param database the database projected onto the current itemset.
+     * @param secondaryItems tells, for every item, whether it may appear in an extension of the current itemset.
+     * @param item the extension item.
+     * @param subtreeUtilities the sub-tree utility bounds of every item, by measure ordinal.
+     * @param node the search tree node of the current itemset, or null if the tree is not built.
+     */
+    private void extendProjected(SearchStack stack, ProjectedDatabase database, boolean[] secondaryItems,
+                                 int item, long[][] subtreeUtilities, SearchTreeNode node) {
+        if (!this.withinAnyBound(subtreeUtilities, item)) return;
+
+        // Join the prefix utility-list with the item's utility-list to get the exact occurrences.
+        // Supersets cannot occur earlier, so the whole sub-tree is pruned when the first occurrence exceeds maxPer
+        // (the join stops there). Larger gaps are allowed, since supersets may lose the occurrence after them.
+        UtilityList newUtilityList;
+        if (stack.getDepth() == 0) {
+            newUtilityList = this.itemUtilityLists[item];
+            if (this.database.getIds()[newUtilityList.getTids()[0]] > this.maxPer) return;
+        } else {
+            // The join buffer of the next depth is overwritten by the next sibling, so the list is copied.
+            newUtilityList = stack.getUtilityList().join(this.itemUtilityLists[item],
+                    this.database.getIds(), this.maxPer, Integer.MAX_VALUE, stack.getJoinBuffer());
+            if (newUtilityList == null) return;
+            newUtilityList = newUtilityList.copy();
+        }
+        int maxPeriod = this.calculateMaxPeriod(newUtilityList);
+        int utility = this.getTotalUtility(newUtilityList);
+        float expectedUtility = this.getTotalExpectedUtility(newUtilityList, stack);
+
+        stack.push(item, newUtilityList, null, utility, expectedUtility, maxPeriod);
+        this.processCurrentItemset(stack);
+        this.projectedTreeGrowth(stack, database.project(item, secondaryItems), this.addSearchTreeNode(node, stack));
+        stack.pop();
+    }
+
+    /**
+     * Returns the lowest projected threshold of the top-K lists: a value below it cannot enter any list.
+     *
+     * @return the lowest projected threshold.
+     */
+    private float lowestProjectedMinUtil() {
+        float minUtil = Float.POSITIVE_INFINITY;
+        for (Ranking ranking : this.rankings) {
+            minUtil = Math.min(minUtil, this.getProjectedMinUtil(ranking));
+        }
+        return minUtil;
+    }
+
+    /**
+     * Tells whether the bound of an item reaches the projected threshold of at least one top-K list.
+     *
+     * @param bounds the bound of every item, by measure ordinal.
+     * @param item the item.
+     * @return true if some list cannot prune the item.
+     */
+    private boolean withinAnyBound(long[][] bounds, int item) {
+        for (Ranking ranking : this.rankings) {
+            if (bounds[ranking.measure.ordinal()][item] >= this.getProjectedMinUtil(ranking)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the threshold used to prune the projected-database search for a measure.
+     * Once the top-K list is full, an itemset only enters it by exceeding the lowest value in the list,
+     * so that value is used instead of minUtil whenever it is higher. Both values are volatile, so the
+     * workers of the parallel mode always prune against the tightest threshold published so far.
+     *
+     * @param ranking the top-K list and threshold of the measure.
+     * @return the pruning threshold.
+     */
+    private float getProjectedMinUtil(Ranking ranking) {
+        return Math.max(ranking.minUtil, ranking.lowestTopKUtil);
+    }
+
+    // --------------------------- HELPER FUNCTIONS ---------------------------
+
+    /**
+     * Tells whether the search may use an item, i.e. whether it is not restricted to other items (see append).
+     *
+     * @param item the dense item ID.
+     * @return true if the item may be searched.
+     */
+    private boolean isSearched(int item) {
+        return this.searchedItems == null || this.searchedItems[item];
+    }
+
+    /**
+     * Adds the itemset on top of the search stack to the explored search tree, with its original items.
+     * The node is synchronized on its parent, since the workers of the parallel mode may add siblings concurrently.
+     *
+     * @param parent the search tree node of the prefix, or null if the tree is not built.
+     * @param stack the search stack, holding the itemset and its measures.
+     * @return the new node, or null if the tree is not built.
+     */
+    private SearchTreeNode addSearchTreeNode(SearchTreeNode parent, SearchStack stack) {
+        if (parent == null) return null;
+        List<Integer> items = stack.toItemList().stream()
+                .map(item -> this.originalItems[item])
+                .collect(Collectors.toList());
+        SearchTreeNode node = new SearchTreeNode(items, stack.getUtility(), stack.getExpectedUtility(),
+                stack.getMaxPeriod());
+        synchronized (parent) {
+            parent.getChildren().put(this.originalItems[stack.getLastItem()], node);
+        }
+        return node;
+    }
+
+    /**
+     * Stores the final top-K itemsets of every measure sorted by value in descending order,
+     * with their dense item IDs mapped back to the original items.
+     */
+    private void collectResults() {
+        for (Ranking ranking : this.rankings) {
+            List<Itemset> results = new ArrayList<>(ranking.topKItemsets.size());
+            for (Itemset itemset : ranking.topKItemsets.getItemsets()) {
+                List<Integer> items = itemset.getItems().stream()
+                        .map(item -> this.originalItems[item])
+                        .collect(Collectors.toList());
+                results.add(new Itemset(items, itemset.getUtility(), itemset.getExpectedUtility(), itemset.getMaxPer()));
+            }
+            results.sort(ranking.measure.resultOrder());
+            ranking.results = results;
+        }
+    }
+
+    /**
+     * Returns the top-K list and threshold of a measure and maxPer value mined by this engine.
+     */
+    private Ranking rankingOf(UtilityMeasure measure, int maxPer) {
+        for (Ranking ranking : this.rankings) {
+            if (ranking.measure == measure && ranking.maxPer == maxPer) return ranking;
+        }
+        throw new IllegalArgumentException("Not mined by this engine: " + measure + " with maxPer = " + maxPer);
+    }
+
+    // --------------------------- RUN & RESULTS ---------------------------
+
+    /**
+     * Executes the candidate generation process for all the measures in a single traversal and measures its
+     * execution time and memory usage, without printing anything, so that several runs can be executed concurrently.
+     */
+    public void mineTopK() {
+        // Measure runtime and memory for the candidate generation process.
+        long startTime = System.nanoTime();
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        long memoryBefore = runtime.totalMemory() - runtime.freeMemory();
+
+        this.mine(null);
+
+        this.runTime = (System.nanoTime() - startTime) / 1_000_000_000.0;
+        long memoryAfter = runtime.totalMemory() - runtime.freeMemory();
+        this.memoryUsed = (memoryAfter - memoryBefore) / (1024.0 * 1024.0);
+    }
+
+    /**
+     * Runs the search over all the transactions, or only over the itemsets whose measures an appended transaction
+     * may have changed (see append).
+     *
+     * @param appended the transaction appended since the last run, or null to search all the itemsets.
+     */
+    private void mine(Transaction appended) {
+        int[] previousItems = this.originalItems;
+        this.database = new TransactionDatabase(this.transactions);
+        TransactionDatabase original = this.database;
+        this.dbUtil = this.calculateDbUtil();
+        this.initialMinUtil();
+        this.computeTWU();
+        this.computeThresholdBounds();
+        this.buildUtilityLists();
+        this.search(appended == null ? null : this.changedItems(original, appended, previousItems));
+    }
+
+    /**
+     * Searches the top-K itemsets of the recoded transactions from the thresholds set by initialMinUtil, over all the
+     * itemsets, or only over those using the given items (see append). The short itemsets are only offered before
+     * a full search; a restricted search starts from the seed itemsets, i.e. the previous top-K itemsets.
+     *
+     * @param searchedItems whether the search may use each dense item ID, or null to search all the itemsets.
+     */
+    private void search(boolean[] searchedItems) {
+        this.searchedItems = searchedItems;
+        this.pairPrunedCandidates = 0;
+        SearchStack stack = new SearchStack();
+        this.offerSeedItemsets(stack);
+        if (this.projectedMode && searchedItems == null) this.offerShortItemsets(stack);
+        this.startAtLowestTopKValues();
+
+        if (this.projectedMode) {
+            this.generateItemsetsProjected();
+        } else {
+            this.generateItemsets();
+        }
+        this.searchedItems = null;
+        this.collectResults();
+    }
+
+    // --------------------------- ONLINE MAINTENANCE ---------------------------
+
+    /**
+     * Appends a transaction to the mined ones and updates the top-K itemsets of every measure (see currentTopK).
+     * Before the first run, the transaction is only stored. Afterwards, the item statistics are updated with the
+     * transaction alone, and the recoded transactions, utility-lists, pair bounds and PRIU/PLIU_E bounds are
+     * extended with it in place (see extendInPlace). The structures are rebuilt instead when the transaction changes
+     * the items kept by the TWU filter or their order.
+     * In the projected mode, only the itemsets the transaction contains are searched again: the other itemsets keep
+     * their utility, expected utility and maximum period. The previous top-K itemsets are evaluated exactly on the
+     * new transactions and seed the lists (see offerSeedItemsets), so the restricted search starts from their
+     * values. When the filter keeps other items than before, the PTUs, and so the expected utilities, of the
+     * transactions containing these items change as well, so the itemsets they contain are searched again too
+     * (see changedItems). The update equals a new run (up to ties at the K-th value) unless the previous results
+     * hide better itemsets that were not searched again, which is detected:
+     * - the transaction has a negative utility: the initial minUtil decreases;
+     * - a previous top-K itemset lost value (or a period constraint) without being outranked.
+     * In these cases, the whole search runs again over the same structures, still seeded with the previous top-K
+     * itemsets.
+     * The heuristic tree growth is neither restricted nor seeded, since seeds lower the quality of its results:
+     * it searches all the itemsets again over the updated structures, like a new run.
+     *
+     * @param transaction the new transaction.
+     */
+    public void append(Transaction transaction) {
+        long startTime = System.nanoTime();
+        boolean signsKept = this.rankings != null && this.keepsItemSigns(transaction);
+        this.transactions.add(transaction);
+        if (this.itemStatistics != null) this.itemStatistics.add(transaction);
+        if (this.rankings == null) return;
+        if (!this.projectedMode) {
+            if (!this.extendInPlace(transaction)) this.mine(null);
+            this.runTime = (System.nanoTime() - startTime) / 1_000_000_000.0;
+            return;
+        }
+
+        List<List<Itemset>> previousResults = new ArrayList<>();
+        Set<List<Integer>> seeds = new LinkedHashSet<>();
+        for (Ranking ranking : this.rankings) {
+            previousResults.add(ranking.results);
+            ranking.results.forEach(itemset -> seeds.add(itemset.getItems()));
+        }
+        List<List<Integer>> callerSeeds = this.seedItemsets;
+        this.seedItemsets = new ArrayList<>(seeds);
+
+        if (!signsKept || !this.extendInPlace(transaction)) this.mine(transaction);
+        boolean exact = transaction.getTransactionUtility() >= 0;
+        for (int r = 0; exact && r < this.rankings.length; r++) {
+            exact = this.keepsPreviousResults(this.rankings[r], previousResults.get(r));
+        }
+        if (!exact) {
+            this.initialMinUtil();
+            this.search(null);
+        }
+
+        this.seedItemsets = callerSeeds;
+        this.runTime = (System.nanoTime() - startTime) / 1_000_000_000.0;
+    }
+
+    /**
+     * Returns the current top-K itemsets of a measure over all the transactions appended so far, sorted by value
+     * in descending order. The transactions are mined first if the engine has not run yet.
+     *
+     * @param measure the measure, one of those mined by this engine.
+     * @return the top-K itemsets of the measure.
+     */
+    public List<Itemset> currentTopK(UtilityMeasure measure) {
+        if (this.rankings == null) this.mineTopK();
+        return this.getResults(measure);
+    }
+
+    /**
+     * Tells whether an appended transaction keeps the sign of the items kept by the TWU filter, which the projected
+     * mode orders by sign (see recodeItems): it gives no negative utility to an item that never had one. It is
+     * checked before the transaction is added to the item statistics.
+     *
+     * @param transaction the appended transaction.
+     * @return true if the order of the kept items does not depend on the transaction through their signs.
+     */
+    private boolean keepsItemSigns(Transaction transaction) {
+        if (!this.projectedMode) return true;
+        for (int i = 0; i < transaction.getItems().size(); i++) {
+            int item = transaction.getItems().get(i);
+            if (transaction.getUtilities().get(i) < 0 && this.itemCodes.containsKey(item)
+                    && !this.itemStatistics.isNegative(item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Extends the structures of the last run with an appended transaction, already added to the item statistics,
+     * instead of rebuilding them from all the transactions, then searches the itemsets of the transaction again
+     * (all the itemsets for the tree growth, see append).
+     * This is only done when the structures then equal those of a new run: the transaction follows the others and
+     * has a non-negative utility (the initial minUtil only rises), and the TWU filter keeps the same items in the
+     * same order. The exhaustive projected-database search only needs the negative items to come last (see
+     * keepsItemSigns), so in the projected mode the items keep their dense IDs even when the transaction changes
+     * their TWU order; the results are the same up to ties at the K-th value. Then:
+     * - the recoded transaction is appended to the database, its entries to the utility-lists of its items,
+     *   and its PTU to the pair bounds and the tid bitmaps, if the search uses them;
+     * - the positive utility of its items only rises, so PRIU and PLIU_E are raised from the transactions
+     *   containing the items whose positive utility changed, the appended one included.
+     * Otherwise, nothing is changed and the caller runs the search over rebuilt structures.
+     *
+     * @param transaction the appended transaction.
+     * @return true if the structures were extended and the search ran.
+     */
+    private boolean extendInPlace(Transaction transaction) {
+        int transactionUtility = transaction.getTransactionUtility();
+        if (transactionUtility < 0) return false;
+        if (this.database.size() > 0 && transaction.getId() <= this.database.getIds()[this.database.size() - 1]) {
+            return false;
+        }
+
+        // The TWU filter must keep the same items, in the same order for the tree growth (see recodeItems).
+        Map<Integer, Long> twu = this.itemStatistics.getTwu();
+        float minUtil = (this.dbUtil + transactionUtility) * this.threshold;
+        for (int item : transaction.getItems()) {
+            Integer code = this.itemCodes.get(item);
+            if (code == null ? twu.get(item) >= minUtil : twu.get(item) < minUtil) return false;
+            if (code != null && !this.projectedMode && (code > 0 && this.compareItems(code - 1, code) > 0
+                    || code < this.originalItems.length - 1 && this.compareItems(code, code + 1) > 0)) {
+                return false;
+            }
+        }
+        for (int code = 0; code < this.originalItems.length; code++) {
+            if (this.twu[code] < minUtil && twu.get(this.originalItems[code]) < minUtil) return false;
+        }
+
+        // Recode the transaction, with its entries sorted like those of TransactionDatabase.recode.
+        this.dbUtil += transactionUtility;
+        boolean[] searchedItems = new boolean[this.originalItems.length];
+        BitSet changedTids = new BitSet();
+        long[] entries = new long[transaction.getItems().size()];
+        int count = 0;
+        for (int i = 0; i < transaction.getItems().size(); i++) {
+            Integer code = this.itemCodes.get(transaction.getItems().get(i));
+            if (code == null) continue;
+            entries[count++] = ((long) code << 32) | transaction.getUtilities().get(i) & 0xFFFFFFFFL;
+            searchedItems[code] = true;
+        }
+        Arrays.sort(entries, 0, count);
+        int[] items = new int[count];
+        int[] utilities = new int[count];
+        for (int i = 0; i < count; i++) {
+            items[i] = (int) (entries[i] >>> 32);
+            utilities[i] = (int) entries[i];
+        }
+        for (int code = 0; code < this.originalItems.length; code++) {
+            if (!searchedItems[code]) continue;
+            long posUtil = this.itemStatistics.getPosUtil().getOrDefault(this.originalItems[code], 0L);
+            if (posUtil != this.posUtil[code]) {
+                UtilityList utilityList = this.itemUtilityLists[code];
+                for (int i = 0; i < utilityList.getSize(); i++) {
+                    changedTids.set(utilityList.getTids()[i]);
+                }
+            }
+            this.twu[code] = twu.get(this.originalItems[code]);
+            this.posUtil[code] = posUtil;
+        }
+
+        // Extend the database, the utility-lists and the pair bounds; a transaction without kept items is dropped.
+        if (count > 0) {
+            int tid = this.database.append(transaction.getId(), transactionUtility, items, utilities);
+            int ptu = this.database.getPtus()[tid];
+            int antu = this.database.getAntus()[tid];
+            for (int i = 0; i < count; i++) {
+                this.itemUtilityLists[items[i]].add(tid, utilities[i], ptu - Math.max(utilities[i], 0), ptu, antu);
+                if (this.itemTidBitmaps != null) this.itemTidBitmaps[items[i]].add(tid);
+            }
+            if (this.cooccurrences != null) this.cooccurrences.addTransaction(this.database, tid);
+            changedTids.set(tid);
+        }
+        if (this.usesTidBitmaps() != (this.itemTidBitmaps != null)) {
+            this.buildTidBitmaps();
+        }
+        for (int tid = changedTids.nextSetBit(0); tid >= 0; tid = changedTids.nextSetBit(tid + 1)) {
+            this.priu = Math.max(this.priu, (float) this.positiveRemainingItemUtility(tid));
+            this.pliuE = Math.max(this.pliuE, (float) this.positiveLeafItemsetUtility(tid));
+        }
+
+        this.initialMinUtil();
+        this.search(this.projectedMode ? searchedItems : null);
+        return true;
+    }
+
+    /**
+     * Compares two items kept by the TWU filter in the order of the tree growth (see recodeItems), with their
+     * current statistics.
+     *
+     * @param code1 the dense ID of the first item.
+     * @param code2 the dense ID of the second item.
+     * @return a negative value if the first item comes first, a positive value otherwise.
+     */
+    private int compareItems(int code1, int code2) {
+        int item1 = this.originalItems[code1];
+        int item2 = this.originalItems[code2];
+        int byTWU = Long.compare(this.itemStatistics.getTwu().get(item2), this.itemStatistics.getTwu().get(item1));
+        return byTWU != 0 ? byTWU : Integer.compare(item1, item2);
+    }
+
+    /**
+     * Returns the dense item IDs the search is restricted to after a transaction is appended and the structures
+     * are rebuilt: the items of the transaction, whose itemsets gain an occurrence, and, when expected utilities are
+     * ranked, the items of every transaction containing an item the TWU filter kept or removed since the previous
+     * run, whose PTU changed. The transactions are scanned in their columnar layout, with the changed items in
+     * a primitive hash set.
+     *
+     * @param transactions the transaction database, with original items.
+     * @param appended the appended transaction.
+     * @param previousItems the items kept by the TWU filter of the previous run, by dense ID.
+     * @return whether the search may use each dense item ID.
+     */
+    private boolean[] changedItems(TransactionDatabase transactions, Transaction appended, int[] previousItems) {
+        boolean[] searchedItems = new boolean[this.originalItems.length];
+        for (int item : appended.getItems()) {
+            Integer code = this.itemCodes.get(item);
+            if (code != null) searchedItems[code] = true;
+        }
+        if (!this.expectedUtilityNeeded) return searchedItems;
+
+        // The items kept by exactly one of the two runs.
+        LongHashSet changedItems = new LongHashSet(previousItems.length + this.originalItems.length);
+        for (int item : previousItems) {
+            changedItems.add(item);
+        }
+        for (int item : this.originalItems) {
+            if (!changedItems.remove(item)) changedItems.add(item);
+        }
+        if (changedItems.size() == 0) return searchedItems;
+
+        int[] items = transactions.getItems();
+        for (int tid = 0; tid < transactions.size(); tid++) {
+            for (int i = transactions.start(tid); i < transactions.end(tid); i++) {
+                if (!changedItems.contains(items[i])) continue;
+                for (int j = transactions.start(tid); j < transactions.end(tid); j++) {
+                    Integer code = this.itemCodes.get(items[j]);
+                    if (code != null) searchedItems[code] = true;
+                }
+                break;
+            }
+        }
+        return searchedItems;
+    }
+
+    /**
+     * Tells whether the new results of a list still account for every previous result: each previous itemset either
+     * kept at least its previous value, or is outranked by the K-th itemset of the new full list. Otherwise, an
+     * itemset ranked below the previous list could now belong to the top-K without being searched again.
+     *
+     * @param ranking the top-K list, holding the new results.
+     * @param previousResults the previous results of the list.
+     * @return true if no previous result was lost.
+     */
+    private boolean keepsPreviousResults(Ranking ranking, List<Itemset> previousResults) {
+        Map<Set<Integer>, Itemset> results = new HashMap<>();
+        ranking.results.forEach(itemset -> results.put(new HashSet<>(itemset.getItems()), itemset));
+        double lowestValue = ranking.results.size() < this.k ? Double.NEGATIVE_INFINITY
+                : ranking.measure.value(ranking.results.get(ranking.results.size() - 1));
+        for (Itemset previous : previousResults) {
+            double previousValue = ranking.measure.value(previous);
+            Itemset current = results.get(new HashSet<>(previous.getItems()));
+            if (previousValue <= lowestValue) continue;
+            if (current == null || ranking.measure.value(current) < previousValue) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the final top-K itemsets of a measure from the last run, sorted by value in descending order.
+     *
+     * @param measure the measure, one of those mined by this engine.
+     * @return the top-K itemsets of the measure.
+     */
+    public List<Itemset> getResults(UtilityMeasure measure) {
+        return this.rankingOf(measure, this.maxPer).results;
+    }
+
+    /**
+     * Returns the top-K itemsets of a measure for one point of a parameter sweep (see sweep), sorted by value in
+     * descending order. The list of a maxPer value holds the K best itemsets satisfying it for the largest k of
+     * the sweep, so the top-k for a smaller k is its first k itemsets.
+     *
+     * @param measure the measure, one of those mined by this engine.
+     * @param k the top-K value, at most the k of the engine.
+     * @param maxPer the maximum period, one of the maxPer values of the sweep.
+     * @return the top-k itemsets of the measure under maxPer.
+     */
+    public List<Itemset> getResults(UtilityMeasure measure, int k, int maxPer) {
+        if (k > this.k) throw new IllegalArgumentException("k = " + k + " exceeds the mined k = " + this.k);
+        List<Itemset> results = this.rankingOf(measure, maxPer).results;
+        return new ArrayList<>(results.subList(0, Math.min(k, results.size())));
+    }
+
+    /**
+     * Mines the top-K itemsets of a transaction list for every combination of the given k and maxPer values in a
+     * single pass. The engine runs the exhaustive projected-database search with the largest k and the loosest
+     * maxPer, and keeps one top-K list per maxPer value, fed with the itemsets whose maximum period satisfies it
+     * (see getResults(UtilityMeasure, int, int)). A sub-tree is only pruned when the bounds of all the lists allow
+     * it, so every list is exact (itemsets tied with the K-th value may differ from a separate run).
+     *
+     * @param transactions the list of transactions to process.
+     * @param ks the top-K values of the sweep.
+     * @param maxPers the maximum periods of the sweep.
+     * @param threshold the initial minUtil as a share of the total utility of the transactions.
+     * @param measures the measures to rank, at least one.
+     * @return the engine holding the results of every combination.
+     */
+    public static MiningEngine sweep(List<Transaction> transactions, int[] ks, int[] maxPers, float threshold,
+                                     UtilityMeasure... measures) {
+        if (ks.length == 0 || maxPers.length == 0) throw new IllegalArgumentException("Empty parameter sweep");
+        MiningEngine engine = new MiningEngine(transactions, Arrays.stream(ks).max().getAsInt(),
+                Arrays.stream(maxPers).max().getAsInt(), threshold, measures);
+        engine.setProjectedMode(true);
+        engine.setSweepMaxPers(Arrays.stream(maxPers).distinct().sorted().toArray());
+        engine.mineTopK();
+        return engine;
+    }
+
+    /**
+     * Returns the current minUtil threshold of a measure (the final one after a run).
+     *
+     * @param measure the measure, one of those mined by this engine.
+     * @return the minUtil threshold of the measure.
+     */
+    public float getMinUtil(UtilityMeasure measure) {
+        return this.rankingOf(measure, this.maxPer).minUtil;
+    }
+
+    /**
+     * Prints the execution time, the memory usage, the extensions pruned by the pair bounds (tree growth only)
+     * and the final top-K itemsets of a measure from the last run.
+     *
+     * @param measure the measure, one of those mined by this engine.
+     */
+    public void printResults(UtilityMeasure measure) {
+        List<Itemset> allCandidates = this.getResults(measure);
+        System.out.printf("Execution Time: %.2f s%n", this.runTime);
+        System.out.printf("Memory Usage: %.2f MB%n", this.memoryUsed);
+        // Only the tree growth uses the pair bounds; the projected-database search never counts any.
+        if (!this.projectedMode) System.out.println("Candidates pruned by pair bounds: " + this.pairPrunedCandidates);
+        System.out.println("\n🔹 Final Top-" + this.k + " Itemsets:");
+
+        if (allCandidates.isEmpty()) {
+            System.out.println("⚠️ No itemsets satisfy your condition.");
+        } else if (allCandidates.size() < this.k) {
+            System.out.println("⚠️ Only " + allCandidates.size() + " itemsets found.");
+            for (int i = 0; i < allCandidates.size(); i++) {
+                System.out.println((i + 1) + ": " + allCandidates.get(i));
+            }
+        } else {
+            for (int i = 0; i < this.k; i++) {
+                System.out.println((i + 1) + ": " + allCandidates.get(i));
+            }
+        }
+    }
+
+    /**
+     * The top-K list of one measure and maxPer value with its thresholds. The thresholds are volatile, so the
+     * workers of the parallel mode always read the latest values published under the engine lock.
+     */
+    private static class Ranking {
+        private final UtilityMeasure measure;
+        private final int maxPer;                        // Maximum period of the itemsets of this list.
+        private final TopKCollector topKItemsets;        // Top-K itemsets (items as dense IDs) by canonical key.
+        private volatile float minUtil;                  // Minimum value threshold of the measure.
+        private volatile float lowestTopKUtil = Float.NEGATIVE_INFINITY; // Lowest value of a full top-K list.
+        private List<Itemset> results;                   // Final top-K itemsets of the last run.
+
+        private Ranking(UtilityMeasure measure, int maxPer, int k, float minUtil) {
+            this.measure = measure;
+            this.maxPer = maxPer;
+            this.topKItemsets = new TopKCollector(k, measure::value);
+            this.minUtil = minUtil;
+        }
+    }
+}
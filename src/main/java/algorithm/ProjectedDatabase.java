@@ -0,0 +1,134 @@
+package algorithm;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Represents the database projected onto a prefix itemset, as used by the EFIM-style search of
+ * STP-HUPI and STP-HUI. Items of every projected transaction are ordered by the processing order, so that
+ * projecting onto an extension item keeps only the items located after it. Projected transactions with
+ * identical remaining items are merged, which shrinks the working set of each level on dense datasets.
+ */
+@Getter
+public class ProjectedDatabase {
+    private final List<ProjectedTransaction> transactions;
+
+    /**
+     * Constructs a projected database from the given transactions, merging those with identical remaining items.
+     *
+     * @param transactions the projected transactions.
+     */
+    public ProjectedDatabase(List<ProjectedTransaction> transactions) {
+        this.transactions = merge(transactions);
+    }
+
+    /**
+     * Projects this database onto an extension item.
+     * Every transaction containing the item is kept with the items located after it, and the utility
+     * of the item is added to the prefix utilities. Only the secondary items, which may still appear in an
+     * extension of the new prefix, are kept; the other items are removed with their utilities so that they no
+     * longer inflate the remaining utilities. Transactions without remaining items are dropped.
+     *
+     * @param item the extension item (in processing order).
+     * @param secondaryItems tells, for every item, whether it may still appear in an extension.
+     * @return the projected database of the extended prefix.
+     */
+    public ProjectedDatabase project(int item, boolean[] secondaryItems) {
+        List<ProjectedTransaction> projected = new ArrayList<>();
+        for (ProjectedTransaction transaction : this.transactions) {
+            int[] items = transaction.getItems();
+            int position = Arrays.binarySearch(items, transaction.getOffset(), items.length, item);
+            if (position < 0) continue;
+
+            int[] positiveSuffixUtilities = transaction.getPositiveSuffixUtilities();
+            int prefixUtility = transaction.getPrefixUtility() + transaction.getUtilities()[position];
+            int prefixPositiveUtility = transaction.getPrefixPositiveUtility() + positiveSuffixUtilities[position]
+                    - positiveSuffixUtilities[position + 1];
+            int kept = 0;
+            for (int i = position + 1; i < items.length; i++) {
+                if (secondaryItems[items[i]]) kept++;
+            }
+            if (kept == 0) continue;
+
+            if (kept == items.length - position - 1) {
+                // Nothing to remove: share the arrays of the parent transaction.
+                projected.add(new ProjectedTransaction(items, transaction.getUtilities(), positiveSuffixUtilities,
+                        position + 1, prefixUtility, prefixPositiveUtility, transaction.getSupport()));
+                continue;
+            }
+            int[] newItems = new int[kept];
+            int[] newUtilities = new int[kept];
+            int[] newPositiveSuffixUtilities = new int[kept + 1];
+            int j = 0;
+            for (int i = position + 1; i < items.length; i++) {
+                if (!secondaryItems[items[i]]) continue;
+                newItems[j] = items[i];
+                newUtilities[j] = transaction.getUtilities()[i];
+                // The positive part is read from the suffix sums, since merged utilities may have mixed signs.
+                newPositiveSuffixUtilities[j] = positiveSuffixUtilities[i] - positiveSuffixUtilities[i + 1];
+                j++;
+            }
+            for (j = kept - 1; j >= 0; j--) {
+                newPositiveSuffixUtilities[j] += newPositiveSuffixUtilities[j + 1];
+            }
+            projected.add(new ProjectedTransaction(newItems, newUtilities, newPositiveSuffixUtilities, 0,
+                    prefixUtility, prefixPositiveUtility, transaction.getSupport()));
+        }
+        return new ProjectedDatabase(projected);
+    }
+
+    /**
+     * Merges projected transactions with identical remaining items.
+     * The transactions are sorted by their remaining items so that identical ones become adjacent,
+     * then each group is replaced by one transaction whose utilities, prefix utilities and supports are summed.
+     *
+     * @param transactions the projected transactions.
+     * @return the merged projected transactions.
+     */
+    private static List<ProjectedTransaction> merge(List<ProjectedTransaction> transactions) {
+        if (transactions.size() < 2) return transactions;
+        Comparator<ProjectedTransaction> byRemainingItems = (a, b) -> Arrays.compare(
+                a.getItems(), a.getOffset(), a.getItems().length,
+                b.getItems(), b.getOffset(), b.getItems().length);
+        transactions.sort(byRemainingItems);
+
+        List<ProjectedTransaction> merged = new ArrayList<>();
+        int start = 0;
+        while (start < transactions.size()) {
+            ProjectedTransaction first = transactions.get(start);
+            int end = start + 1;
+            while (end < transactions.size() && byRemainingItems.compare(first, transactions.get(end)) == 0) {
+                end++;
+            }
+            if (end - start == 1) {
+                merged.add(first);
+            } else {
+                int length = first.remainingLength();
+                int[] items = Arrays.copyOfRange(first.getItems(), first.getOffset(), first.getItems().length);
+                int[] utilities = new int[length];
+                int[] positiveSuffixUtilities = new int[length + 1];
+                int prefixUtility = 0;
+                int prefixPositiveUtility = 0;
+                int support = 0;
+                for (int i = start; i < end; i++) {
+                    ProjectedTransaction transaction = transactions.get(i);
+                    for (int j = 0; j < length; j++) {
+                        utilities[j] += transaction.getUtilities()[transaction.getOffset() + j];
+                        positiveSuffixUtilities[j] += transaction.getPositiveSuffixUtilities()[transaction.getOffset() + j];
+                    }
+                    prefixUtility += transaction.getPrefixUtility();
+                    prefixPositiveUtility += transaction.getPrefixPositiveUtility();
+                    support += transaction.getSupport();
+                }
+                merged.add(new ProjectedTransaction(items, utilities, positiveSuffixUtilities, 0,
+                        prefixUtility, prefixPositiveUtility, support));
+            }
+            start = end;
+        }
+        return merged;
+    }
+}
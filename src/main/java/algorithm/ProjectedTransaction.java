@@ -0,0 +1,36 @@
+package algorithm;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents a transaction projected onto the current prefix during the projected-database search.
+ * Only the items located after the offset (in the processing order) remain in the projected transaction.
+ * Projected transactions with identical remaining items are merged: their item utilities and prefix
+ * utilities are summed and their support is the number of original transactions they stand for.
+ * The positive parts of the utilities are kept as suffix sums in the processing order, so the remaining
+ * positive utility after any position is read directly. They are summed separately when merging, because
+ * the sum of mixed-sign utilities would understate the positive utilities used by the upper bounds.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProjectedTransaction {
+    private int[] items;              // Items in processing order (shared with the parent transaction).
+    private int[] utilities;          // Utilities aligned with items.
+    private int[] positiveSuffixUtilities; // Positive utilities from each position to the end (plus a trailing zero).
+    private int offset;               // Position of the first remaining item.
+    private int prefixUtility;        // Utility of the prefix in this transaction.
+    private int prefixPositiveUtility; // Positive part of the utility of the prefix in this transaction.
+    private int support;              // Number of original transactions merged into this one.
+
+    /**
+     * Returns the number of items remaining after the offset.
+     *
+     * @return the number of remaining items.
+     */
+    public int remainingLength() {
+        return this.items.length - this.offset;
+    }
+}
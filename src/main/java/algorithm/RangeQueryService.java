@@ -0,0 +1,328 @@
+package algorithm;
+
+import lombok.Data;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * The RangeQueryService class answers top-K queries over arbitrary time ranges of a dataset (e.g. the last three
+ * weeks, or a Tuesday morning) as a long-running process, without reading the dataset again for every question.
+ * The short-time windows of the dataset are read once (see DatasetReader) and kept in memory with an index:
+ * - the item statistics (TWU, positive utility, supports) of every window are the leaves of a segment tree whose
+ *   nodes hold the merged statistics of their windows, so the statistics of a range are combined from O(log n)
+ *   nodes and the windows cut by the range only, instead of a pass over its transactions (see ItemStatistics);
+ * - in projected mode, the top-K itemsets of every window are mined once when loading, and the top-K itemsets of
+ *   the windows overlapping a range seed its search (see MiningEngine.setSeedItemsets); the seeds are evaluated
+ *   exactly on the range, so the results are unchanged, while the search prunes against their values from the start;
+ * - the results of the last queries are cached by the transactions they select, k and maxPer.
+ * Both measures are mined in a single pass per query. The utility-lists are still built by every query, since the
+ * items they keep and their order depend on the TWU of the whole range.
+ * The queries are read line by line (see serve), so the service can be used from a terminal or a pipe.
+ */
+@Data
+public class RangeQueryService {
+    private static final int CACHED_QUERIES = 64; // Results of the last queries kept in the cache.
+
+    // --------------------------- Fields ---------------------------
+    private String filePath;                     // Path of the dataset file.
+    private int k;                               // Default top-K value of the queries.
+    private int maxPer;                          // Default maximum allowed period of the queries.
+    private float threshold;                     // Initial minUtil as a share of the total utility of a range.
+    private boolean projectedMode;               // Mine with projected and merged transactions (EFIM-style).
+    private int parallelism = 1;                 // Worker threads of the projected-database search (1 = sequential).
+    private List<List<Transaction>> windows = new ArrayList<>(); // Non-empty windows, by timestamp.
+    private ItemStatistics[] statisticsTree;     // Segment tree of the item statistics, window w at leaf n + w.
+    private List<List<List<Integer>>> windowTopK = new ArrayList<>(); // Top-K itemsets of every window (seeds).
+    private Map<String, Map<UtilityMeasure, List<Itemset>>> cachedResults =
+            new LinkedHashMap<String, Map<UtilityMeasure, List<Itemset>>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Map<UtilityMeasure, List<Itemset>>> eldest) {
+                    return this.size() > CACHED_QUERIES;
+                }
+            }; // Results of the last queries, least recently used first.
+    private double runTime; // Runtime of the last query.
+
+    // --------------------------- Constructor ---------------------------
+
+    /**
+     * Constructs a RangeQueryService instance over a dataset file.
+     *
+     * @param filePath the path of the dataset file.
+     * @param k the default top-K parameter of the queries.
+     * @param maxPer the default maximum allowed period of the queries.
+     * @param threshold the initial minUtil as a share of the total utility of a range.
+     */
+    public RangeQueryService(String filePath, int k, int maxPer, float threshold) {
+        this.filePath = filePath;
+        this.k = k;
+        this.maxPer = maxPer;
+        this.threshold = threshold;
+    }
+
+    // --------------------------- INDEX ---------------------------
+
+    /**
+     * Reads the windows of the dataset and builds the index: the segment tree of the item statistics and, in
+     * projected mode, the top-K itemsets of every window with the default k and maxPer.
+     *
+     * @throws IOException if there is an error reading the dataset.
+     */
+    public void load() throws IOException {
+        this.windows = new ArrayList<>();
+        for (List<Transaction> window : DatasetReader.readDataset(this.filePath)) {
+            if (!window.isEmpty()) this.windows.add(window);
+        }
+
+        int n = this.windows.size();
+        this.statisticsTree = new ItemStatistics[2 * n];
+        for (int w = 0; w < n; w++) {
+            ItemStatistics statistics = new ItemStatistics();
+            this.windows.get(w).forEach(statistics::add);
+            this.statisticsTree[n + w] = statistics;
+        }
+        for (int node = n - 1; node > 0; node--) {
+            this.statisticsTree[node] = new ItemStatistics();
+            this.statisticsTree[node].addAll(this.statisticsTree[2 * node]);
+            this.statisticsTree[node].addAll(this.statisticsTree[2 * node + 1]);
+        }
+
+        this.windowTopK = new ArrayList<>();
+        if (!this.projectedMode) return;
+        for (int w = 0; w < n; w++) {
+            MiningEngine engine = this.mine(this.windows.get(w), this.statisticsTree[n + w], this.k, this.maxPer, null);
+            List<List<Integer>> itemsets = new ArrayList<>();
+            for (UtilityMeasure measure : UtilityMeasure.values()) {
+                engine.getResults(measure).forEach(itemset -> itemsets.add(itemset.getItems()));
+            }
+            this.windowTopK.add(itemsets);
+            System.err.printf("Indexed window %d of %d in %.2f s%n", w + 1, n, engine.getRunTime());
+        }
+    }
+
+    /**
+     * Returns the item statistics of a range of windows, combined from the nodes of the segment tree covering it.
+     *
+     * @param first the first window of the range.
+     * @param end the window following the range.
+     * @return new statistics of the transactions of the windows.
+     */
+    private ItemStatistics rangeStatistics(int first, int end) {
+        ItemStatistics statistics = new ItemStatistics();
+        int n = this.windows.size();
+        for (int left = first + n, right = end + n; left < right; left >>= 1, right >>= 1) {
+            if ((left & 1) == 1) statistics.addAll(this.statisticsTree[left++]);
+            if ((right & 1) == 1) statistics.addAll(this.statisticsTree[--right]);
+        }
+        return statistics;
+    }
+
+    // --------------------------- QUERIES ---------------------------
+
+    /**
+     * Mines the top-K itemsets of both measures over the transactions of a time range. The windows inside the range
+     * are taken whole with their indexed statistics; only the transactions of the windows cut by the range are
+     * selected and counted one by one. The results are shared with the cache, so the map and its lists are
+     * unmodifiable.
+     *
+     * @param from the start of the range (in seconds, inclusive).
+     * @param to the end of the range (in seconds, inclusive).
+     * @param k the top-K parameter, at least 1.
+     * @param maxPer the maximum allowed period.
+     * @return an unmodifiable map of the top-K itemsets of every measure, empty if the range holds no transaction.
+     */
+    public Map<UtilityMeasure, List<Itemset>> query(long from, long to, int k, int maxPer) {
+        if (k < 1) throw new IllegalArgumentException("k = " + k + " is below 1");
+        long startTime = System.nanoTime();
+        int first = 0;
+        while (first < this.windows.size() && lastTimestamp(this.windows.get(first)) < from) first++;
+        int end = first;
+        while (end < this.windows.size() && firstTimestamp(this.windows.get(end)) <= to) end++;
+        List<List<Transaction>> selected = new ArrayList<>(); // Selected transactions of every overlapping window.
+        List<Transaction> transactions = new ArrayList<>();
+        for (int w = first; w < end; w++) {
+            List<Transaction> window = this.windows.get(w);
+            selected.add(window.subList(lowerBound(window, from), lowerBound(window, to + 1)));
+            transactions.addAll(selected.get(w - first));
+        }
+
+        Map<UtilityMeasure, List<Itemset>> results = new EnumMap<>(UtilityMeasure.class);
+        if (transactions.isEmpty()) {
+            for (UtilityMeasure measure : UtilityMeasure.values()) results.put(measure, Collections.emptyList());
+            this.runTime = (System.nanoTime() - startTime) / 1_000_000_000.0;
+            return Collections.unmodifiableMap(results);
+        }
+        // The selected transactions are those between the first and the last selected timestamps, so these
+        // identify the ranges selecting the same transactions.
+        String key = firstTimestamp(transactions) + "-" + lastTimestamp(transactions) + ":" + k + ":" + maxPer;
+        Map<UtilityMeasure, List<Itemset>> cached = this.cachedResults.get(key);
+        if (cached != null) {
+            this.runTime = (System.nanoTime() - startTime) / 1_000_000_000.0;
+            return cached;
+        }
+
+        // The windows selected whole form a run between the (at most two) windows cut by the range.
+        ItemStatistics statistics = new ItemStatistics();
+        for (int w = first; w < end; ) {
+            int runEnd = w;
+            while (runEnd < end && selected.get(runEnd - first).size() == this.windows.get(runEnd).size()) runEnd++;
+            if (runEnd > w) {
+                statistics.addAll(this.rangeStatistics(w, runEnd));
+                w = runEnd;
+            } else {
+                selected.get(w - first).forEach(statistics::add);
+                w++;
+            }
+        }
+        Set<List<Integer>> seeds = new LinkedHashSet<>();
+        if (this.projectedMode) this.windowTopK.subList(first, end).forEach(seeds::addAll);
+
+        MiningEngine engine = this.mine(transactions, statistics, k, maxPer,
+                seeds.isEmpty() ? null : new ArrayList<>(seeds));
+        for (UtilityMeasure measure : UtilityMeasure.values()) {
+            results.put(measure, Collections.unmodifiableList(engine.getResults(measure)));
+        }
+        Map<UtilityMeasure, List<Itemset>> unmodifiableResults = Collections.unmodifiableMap(results);
+        this.cachedResults.put(key, unmodifiableResults);
+        this.runTime = (System.nanoTime() - startTime) / 1_000_000_000.0;
+        return unmodifiableResults;
+    }
+
+    /**
+     * Mines both measures over a list of transactions whose item statistics are known.
+     */
+    private MiningEngine mine(List<Transaction> transactions, ItemStatistics statistics, int k, int maxPer,
+                              List<List<Integer>> seeds) {
+        MiningEngine engine = new MiningEngine(transactions, k, maxPer, this.threshold,
+                UtilityMeasure.EXPECTED_UTILITY, UtilityMeasure.UTILITY);
+        engine.setProjectedMode(this.projectedMode);
+        engine.setParallelism(this.parallelism);
+        engine.setItemStatistics(statistics);
+        engine.setSeedItemsets(seeds);
+        engine.mineTopK();
+        return engine;
+    }
+
+    // --------------------------- PROTOCOL ---------------------------
+
+    /**
+     * Answers the queries read line by line until the input ends or a "quit" line is read. Every answer ends with
+     * an empty line. The queries are:
+     * - "topk FROM TO [K [MAXPER]]": the top-K itemsets of both measures over the range from FROM to TO
+     *   (inclusive), given as epoch seconds, local date-times (2011-01-04T09:00) or local dates (2011-01-04,
+     *   the whole day), with FROM <= TO; K (at least 1) and MAXPER default to those of the service;
+     * - "windows": the windows of the dataset with their time range and number of transactions.
+     *
+     * @param in the reader of the queries.
+     * @param out the stream receiving the answers.
+     * @throws IOException if there is an error reading the queries.
+     */
+    public void serve(BufferedReader in, PrintStream out) throws IOException {
+        out.println("Ready: " + this.windows.size() + " windows of " + DatasetReader.extractDatasetName(this.filePath));
+        out.println();
+        out.flush();
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] tokens = line.trim().split("\\s+");
+            if (tokens[0].isEmpty()) continue;
+            if (tokens[0].equals("quit")) break;
+            try {
+                if (tokens[0].equals("topk") && tokens.length >= 3 && tokens.length <= 5) {
+                    long from = parseTime(tokens[1], false);
+                    long to = parseTime(tokens[2], true);
+                    int k = tokens.length > 3 ? Integer.parseInt(tokens[3]) : this.k;
+                    int maxPer = tokens.length > 4 ? Integer.parseInt(tokens[4]) : this.maxPer;
+                    if (k < 1 || from > to) {
+                        out.println("Error: expected \"topk FROM TO [K [MAXPER]]\" with FROM <= TO and K >= 1");
+                    } else {
+                        this.printResults(this.query(from, to, k, maxPer), from, to, k, maxPer, out);
+                    }
+                } else if (tokens[0].equals("windows") && tokens.length == 1) {
+                    for (int w = 0; w < this.windows.size(); w++) {
+                        List<Transaction> window = this.windows.get(w);
+                        out.println((w + 1) + ": " + formatTime(firstTimestamp(window)) + " - "
+                                + formatTime(lastTimestamp(window)) + ", " + window.size() + " transactions");
+                    }
+                } else {
+                    out.println("Error: expected \"topk FROM TO [K [MAXPER]]\", \"windows\" or \"quit\"");
+                }
+            } catch (RuntimeException e) {
+                out.println("Error: " + e.getMessage());
+            }
+            out.println();
+            out.flush();
+        }
+    }
+
+    /**
+     * Prints the top-K itemsets of both measures of a query.
+     */
+    private void printResults(Map<UtilityMeasure, List<Itemset>> results, long from, long to, int k, int maxPer,
+                              PrintStream out) {
+        out.println("Range: " + formatTime(from) + " - " + formatTime(to) + ", k = " + k + ", maxPer = " + maxPer);
+        out.printf("Execution Time: %.2f s%n", this.runTime);
+        out.println("[1] Short-time Top-" + k + " Periodic High-utility Probabilistic Itemsets:");
+        this.printItemsets(results.get(UtilityMeasure.EXPECTED_UTILITY), out);
+        out.println("[2] Short-time Top-" + k + " Periodic High-utility Itemsets:");
+        this.printItemsets(results.get(UtilityMeasure.UTILITY), out);
+    }
+
+    private void printItemsets(List<Itemset> itemsets, PrintStream out) {
+        if (itemsets.isEmpty()) out.println("No itemsets satisfy your condition.");
+        for (int i = 0; i < itemsets.size(); i++) {
+            out.println((i + 1) + ": " + itemsets.get(i));
+        }
+    }
+
+    // --------------------------- TIMESTAMPS ---------------------------
+
+    /**
+     * Parses a bound of a range: epoch seconds, a local date-time, or a local date (its first or last second).
+     *
+     * @param text the bound.
+     * @param end true for the end of a range.
+     * @return the bound in epoch seconds.
+     */
+    static long parseTime(String text, boolean end) {
+        if (text.matches("-?\\d+")) return Long.parseLong(text);
+        ZoneId zone = ZoneId.systemDefault();
+        if (text.contains("T")) return LocalDateTime.parse(text).atZone(zone).toEpochSecond();
+        LocalDate date = LocalDate.parse(text);
+        return end ? date.plusDays(1).atStartOfDay(zone).toEpochSecond() - 1 : date.atStartOfDay(zone).toEpochSecond();
+    }
+
+    private static String formatTime(long timestamp) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(timestamp), ZoneId.systemDefault()).toString();
+    }
+
+    private static long firstTimestamp(List<Transaction> transactions) {
+        return transactions.get(0).getTimestamp();
+    }
+
+    private static long lastTimestamp(List<Transaction> transactions) {
+        return transactions.get(transactions.size() - 1).getTimestamp();
+    }
+
+    /**
+     * Returns the position of the first transaction of a window at or after a timestamp.
+     */
+    private static int lowerBound(List<Transaction> window, long timestamp) {
+        int low = 0;
+        int high = window.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (window.get(middle).getTimestamp() < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -13,8 +13,9 @@ import java.util.Map;
  * This class represents a tree structure used in the STP-HUI algorithm
  * to store and expand high-utility itemsets while maintaining period constraints.
  * Each node in the tree corresponds to an itemset, along with its associated utility values.
- * The tree is used in the STP-HUI mining process to efficiently explore and prune candidate itemsets
- * while ensuring that the discovered patterns satisfy the short-time constraints.
+ * The tree records how the STP-HUI mining process explored and pruned candidate itemsets
+ * while ensuring that the discovered patterns satisfy the short-time constraints. The search itself runs on a
+ * SearchStack, so the tree is only built when the miner is asked for it (buildSearchTree), with original items.
  */
 @Data
 @AllArgsConstructor
@@ -0,0 +1,253 @@
+package algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Holds the state of a depth-first itemset search as a stack of frames, one per itemset size.
+ * The frame at a given depth holds the last item of the current itemset (so the items of the frames below form
+ * the itemset itself, as a primitive prefix array), its utility-list and tid bitmap, and its utility, expected
+ * utility and maximum period. The frames, their candidate sets and their join buffers are allocated once per depth
+ * and reused by every itemset of that size, and the per-transaction values summed by the miners go through a single
+ * reusable buffer, so that only the utility-lists of the itemsets pushed on the stack are allocated, not those of
+ * every explored candidate.
+ * A stack is used by one thread at a time; the parallel search copies it for every forked sub-tree.
+ */
+public class SearchStack {
+    private int depth;                    // Number of items of the current itemset.
+    private int[] items;                  // Item added at every depth (dense IDs).
+    private UtilityList[] utilityLists;   // Utility-list of the itemset at every depth.
+    private TidBitmap[] tidBitmaps;       // Tid bitmap of the itemset at every depth (null on sparse windows).
+    private int[] utilities;              // Utility of the itemset at every depth.
+    private float[] expectedUtilities;    // Expected utility of the itemset at every depth.
+    private int[] maxPeriods;             // Maximum period of the itemset at every depth.
+    private BitSet[] candidates;          // Reusable extension-candidate set of every depth.
+    private UtilityList[] joinBuffers;    // Reusable join result of every depth.
+    private double[] buffer = new double[16]; // Reusable buffer of per-transaction values.
+
+    /**
+     * Constructs an empty stack (the root of the search, at depth 0).
+     */
+    public SearchStack() {
+        this(16);
+    }
+
+    private SearchStack(int capacity) {
+        this.items = new int[capacity];
+        this.utilityLists = new UtilityList[capacity];
+        this.tidBitmaps = new TidBitmap[capacity];
+        this.utilities = new int[capacity];
+        this.expectedUtilities = new float[capacity];
+        this.maxPeriods = new int[capacity];
+        this.candidates = new BitSet[capacity];
+        this.joinBuffers = new UtilityList[capacity];
+    }
+
+    /**
+     * Extends the current itemset with an item and records the measures of the extended itemset.
+     *
+     * @param item the extension item.
+     * @param utilityList the utility-list of the extended itemset.
+     * @param tidBitmap the tid bitmap of the extended itemset, or null.
+     * @param utility the utility of the extended itemset.
+     * @param expectedUtility the expected utility of the extended itemset.
+     * @param maxPeriod the maximum period of the extended itemset.
+     */
+    public void push(int item, UtilityList utilityList, TidBitmap tidBitmap, int utility, float expectedUtility,
+                     int maxPeriod) {
+        if (this.depth == this.items.length) this.grow();
+        this.items[this.depth] = item;
+        this.utilityLists[this.depth] = utilityList;
+        this.tidBitmaps[this.depth] = tidBitmap;
+        this.utilities[this.depth] = utility;
+        this.expectedUtilities[this.depth] = expectedUtility;
+        this.maxPeriods[this.depth] = maxPeriod;
+        this.depth++;
+    }
+
+    /**
+     * Removes the last item of the current itemset. The references of the frame are cleared,
+     * so that the utility-lists of an abandoned branch can be reclaimed.
+     */
+    public void pop() {
+        this.depth--;
+        this.utilityLists[this.depth] = null;
+        this.tidBitmaps[this.depth] = null;
+    }
+
+    /**
+     * Returns the number of items of the current itemset.
+     *
+     * @return the depth of the stack.
+     */
+    public int getDepth() {
+        return this.depth;
+    }
+
+    /**
+     * Returns an item of the current itemset.
+     *
+     * @param index the position of the item in the itemset (its depth minus one).
+     * @return the item.
+     */
+    public int getItem(int index) {
+        return this.items[index];
+    }
+
+    /**
+     * Returns the last item of the current itemset.
+     *
+     * @return the last item.
+     */
+    public int getLastItem() {
+        return this.items[this.depth - 1];
+    }
+
+    /**
+     * Returns the utility-list of the current itemset.
+     *
+     * @return the utility-list.
+     */
+    public UtilityList getUtilityList() {
+        return this.utilityLists[this.depth - 1];
+    }
+
+    /**
+     * Returns the tid bitmap of the current itemset.
+     *
+     * @return the tid bitmap, or null on sparse windows.
+     */
+    public TidBitmap getTidBitmap() {
+        return this.tidBitmaps[this.depth - 1];
+    }
+
+    /**
+     * Returns the utility of the current itemset.
+     *
+     * @return the utility.
+     */
+    public int getUtility() {
+        return this.utilities[this.depth - 1];
+    }
+
+    /**
+     * Returns the expected utility of the current itemset.
+     *
+     * @return the expected utility.
+     */
+    public float getExpectedUtility() {
+        return this.expectedUtilities[this.depth - 1];
+    }
+
+    /**
+     * Returns the maximum period of the current itemset.
+     *
+     * @return the maximum period.
+     */
+    public int getMaxPeriod() {
+        return this.maxPeriods[this.depth - 1];
+    }
+
+    /**
+     * Returns the candidate set of the current depth, cleared.
+     *
+     * @param itemCount the number of distinct items.
+     * @return the empty candidate set.
+     */
+    public BitSet getCandidates(int itemCount) {
+        if (this.depth == this.candidates.length) this.grow();
+        BitSet set = this.candidates[this.depth];
+        if (set == null) {
+            set = new BitSet(itemCount);
+            this.candidates[this.depth] = set;
+        } else {
+            set.clear();
+        }
+        return set;
+    }
+
+    /**
+     * Returns the reusable utility-list of the next depth, into which the utility-list of an extension of the current
+     * itemset is joined (see UtilityList.join). The next join at this depth overwrites it, so the list is copied
+     * when the extension is pushed.
+     *
+     * @return the join buffer of the next depth.
+     */
+    public UtilityList getJoinBuffer() {
+        if (this.depth == this.joinBuffers.length) this.grow();
+        UtilityList buffer = this.joinBuffers[this.depth];
+        if (buffer == null) {
+            buffer = new UtilityList(16);
+            this.joinBuffers[this.depth] = buffer;
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns the reusable buffer of per-transaction values, able to hold the given number of values.
+     *
+     * @param size the number of values.
+     * @return the buffer.
+     */
+    public double[] getBuffer(int size) {
+        if (this.buffer.length < size) this.buffer = new double[Math.max(size, this.buffer.length * 2)];
+        return this.buffer;
+    }
+
+    /**
+     * Returns the canonical key of the current itemset (see TopKCollector.itemsetKey).
+     *
+     * @return the 64-bit key of the itemset.
+     */
+    public long getItemsetKey() {
+        return TopKCollector.itemsetKey(this.items, this.depth);
+    }
+
+    /**
+     * Returns the items of the current itemset as a new list, to be kept after the search moves on.
+     *
+     * @return the items, in the order they were added.
+     */
+    public List<Integer> toItemList() {
+        List<Integer> itemset = new ArrayList<>(this.depth);
+        for (int i = 0; i < this.depth; i++) {
+            itemset.add(this.items[i]);
+        }
+        return itemset;
+    }
+
+    /**
+     * Returns a copy of the stack holding the same itemset, for a sub-tree searched by another thread.
+     * The copy has its own candidate sets and buffers.
+     *
+     * @return the copy.
+     */
+    public SearchStack copy() {
+        SearchStack copy = new SearchStack(this.items.length);
+        copy.depth = this.depth;
+        System.arraycopy(this.items, 0, copy.items, 0, this.depth);
+        System.arraycopy(this.utilityLists, 0, copy.utilityLists, 0, this.depth);
+        System.arraycopy(this.tidBitmaps, 0, copy.tidBitmaps, 0, this.depth);
+        System.arraycopy(this.utilities, 0, copy.utilities, 0, this.depth);
+        System.arraycopy(this.expectedUtilities, 0, copy.expectedUtilities, 0, this.depth);
+        System.arraycopy(this.maxPeriods, 0, copy.maxPeriods, 0, this.depth);
+        return copy;
+    }
+
+    /**
+     * Doubles the number of frames.
+     */
+    private void grow() {
+        int capacity = this.items.length * 2;
+        this.items = Arrays.copyOf(this.items, capacity);
+        this.utilityLists = Arrays.copyOf(this.utilityLists, capacity);
+        this.tidBitmaps = Arrays.copyOf(this.tidBitmaps, capacity);
+        this.utilities = Arrays.copyOf(this.utilities, capacity);
+        this.expectedUtilities = Arrays.copyOf(this.expectedUtilities, capacity);
+        this.maxPeriods = Arrays.copyOf(this.maxPeriods, capacity);
+        this.candidates = Arrays.copyOf(this.candidates, capacity);
+        this.joinBuffers = Arrays.copyOf(this.joinBuffers, capacity);
+    }
+}
@@ -0,0 +1,41 @@
+package algorithm;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A node of the search tree explored by the MiningEngine, recorded when the engine is asked for it
+ * (buildSearchTree). Each node holds an itemset with its original items and its measures, and its children
+ * by extension item. The miners convert it to their own tree classes (StpHupiTree, StpHuiTree).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchTreeNode {
+    private List<Integer> itemset;
+    private int utility;
+    private float expectedUtility;
+    private int maxPeriod;
+    private Map<Integer, SearchTreeNode> children;
+
+    /**
+     * Constructs a new node without children.
+     *
+     * @param itemset The itemset represented by this node.
+     * @param utility The total raw utility of the itemset.
+     * @param expectedUtility The expected utility of the itemset.
+     * @param maxPeriod The maximum period of the itemset.
+     */
+    public SearchTreeNode(List<Integer> itemset, int utility, float expectedUtility, int maxPeriod) {
+        this.itemset = itemset;
+        this.utility = utility;
+        this.expectedUtility = expectedUtility;
+        this.maxPeriod = maxPeriod;
+        this.children = new HashMap<>();
+    }
+}
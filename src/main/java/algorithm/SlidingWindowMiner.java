@@ -0,0 +1,124 @@
+package algorithm;
+
+import lombok.Data;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * The SlidingWindowMiner class mines the top-K itemsets of a sliding window over timestamp-ordered transactions:
+ * a window of windowLength seconds that advances by step seconds, so that consecutive windows share most of their
+ * transactions. Every window position is still mined by a new engine over the whole window (utility-lists and
+ * search included); the miner only carries two things across positions:
+ * - the item statistics (TWU, positive utility, supports), updated with the arriving and expired transactions
+ *   only, so the items of a window are filtered and ordered without a pass over the window (see ItemStatistics);
+ * - in projected mode, the top-K itemsets of the previous window, which seed the top-K lists of the next one: the
+ *   engine evaluates them exactly on the new window before its search starts, so the search prunes against their
+ *   values from its first node on. The seeds are genuine itemsets of the new window, so the results equal those of
+ *   a fresh run (itemsets tied with the K-th value may differ). The default tree growth prunes heuristically, and a
+ *   higher starting threshold lowers the quality of its lists, so it is not seeded (as in TopKPerformanceEvaluator).
+ */
+@Data
+public class SlidingWindowMiner {
+    // --------------------------- Fields ---------------------------
+    private int k;                               // Top-K value.
+    private int maxPer;                          // Maximum allowed period for an itemset.
+    private float threshold;                     // Initial minUtil as a share of the total utility of a window.
+    private UtilityMeasure[] measures;           // Measures ranked in every window.
+    private long windowLength;                   // Length of the window (in seconds).
+    private long step;                           // Advance of the window (in seconds).
+    private boolean projectedMode;               // Mine with projected and merged transactions (EFIM-style).
+    private int parallelism = 1;                 // Worker threads of the projected-database search (1 = sequential).
+    private Deque<Transaction> window = new ArrayDeque<>(); // Transactions of the current window, by timestamp.
+    private ItemStatistics itemStatistics = new ItemStatistics(); // Item statistics of the current window.
+    private List<List<Integer>> previousTopK = new ArrayList<>(); // Top-K itemsets of the previous window (seeds).
+    private double runTime; // Runtime of the last window, including the maintenance of the state.
+
+    // --------------------------- Constructor ---------------------------
+
+    /**
+     * Constructs a SlidingWindowMiner instance.
+     *
+     * @param k the top-K parameter.
+     * @param maxPer the maximum allowed period.
+     * @param threshold the initial minUtil as a share of the total utility of a window.
+     * @param windowLength the length of the window (in seconds).
+     * @param step the advance of the window (in seconds), usually smaller than its length.
+     * @param measures the measures to rank, at least one.
+     */
+    public SlidingWindowMiner(int k, int maxPer, float threshold, long windowLength, long step,
+                              UtilityMeasure... measures) {
+        if (step <= 0 || windowLength <= 0) throw new IllegalArgumentException("The window and its step must be positive");
+        this.k = k;
+        this.maxPer = maxPer;
+        this.threshold = threshold;
+        this.windowLength = windowLength;
+        this.step = step;
+        this.measures = measures.clone();
+    }
+
+    // --------------------------- SLIDING ---------------------------
+
+    /**
+     * Slides the window over a list of transactions, from the timestamp of the first one until the window covers
+     * the last one, and mines every window position. Each position is handed to the consumer as the engine that
+     * mined it, holding its top-K itemsets.
+     *
+     * @param transactions the transactions in ascending timestamp order.
+     * @param consumer the consumer receiving the engine of every window position, in order.
+     */
+    public void mine(List<Transaction> transactions, Consumer<MiningEngine> consumer) {
+        if (transactions.isEmpty()) return;
+        long lastTimestamp = transactions.get(transactions.size() - 1).getTimestamp();
+        int next = 0; // First transaction that has not entered the window yet.
+        for (long start = transactions.get(0).getTimestamp(); ; start += this.step) {
+            long end = start + this.windowLength;
+            while (next < transactions.size() && transactions.get(next).getTimestamp() < start) next++;
+            List<Transaction> arriving = new ArrayList<>();
+            while (next < transactions.size() && transactions.get(next).getTimestamp() < end) {
+                arriving.add(transactions.get(next++));
+            }
+            consumer.accept(this.slide(arriving, start));
+            if (end > lastTimestamp) break;
+        }
+    }
+
+    /**
+     * Advances the window: adds the arriving transactions, expires the transactions older than the new start,
+     * updates the item statistics accordingly, and mines the window, with the top-K itemsets of the previous window
+     * as seeds in projected mode.
+     *
+     * @param arriving the transactions entering the window, in ascending timestamp order.
+     * @param windowStart the new start of the window (in seconds); older transactions expire.
+     * @return the engine that mined the window, holding its top-K itemsets.
+     */
+    public MiningEngine slide(List<Transaction> arriving, long windowStart) {
+        long startTime = System.nanoTime();
+        for (Transaction transaction : arriving) {
+            this.window.addLast(transaction);
+            this.itemStatistics.add(transaction);
+        }
+        while (!this.window.isEmpty() && this.window.peekFirst().getTimestamp() < windowStart) {
+            Transaction expired = this.window.pollFirst();
+            this.itemStatistics.remove(expired);
+        }
+
+        MiningEngine engine = new MiningEngine(new ArrayList<>(this.window), this.k, this.maxPer, this.threshold,
+                this.measures);
+        engine.setProjectedMode(this.projectedMode);
+        engine.setParallelism(this.parallelism);
+        engine.setItemStatistics(this.itemStatistics);
+        if (this.projectedMode) engine.setSeedItemsets(this.previousTopK);
+        engine.mineTopK();
+
+        // In projected mode, the top-K itemsets of every measure seed the next window.
+        this.previousTopK = new ArrayList<>();
+        for (int m = 0; this.projectedMode && m < this.measures.length; m++) {
+            for (Itemset itemset : engine.getResults(this.measures[m])) {
+                this.previousTopK.add(itemset.getItems());
+            }
+        }
+        this.runTime = (System.nanoTime() - startTime) / 1_000_000_000.0;
+        return engine;
+    }
+}
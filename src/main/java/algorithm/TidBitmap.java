@@ -0,0 +1,115 @@
+package algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Represents the set of transactions containing an itemset as a bitmap over the transaction indexes
+ * of a short-time sub-dataset (one bit per transaction, 64 transactions per word).
+ * On dense sub-datasets, where most items occur in a large share of the transactions, the transactions
+ * containing an extended itemset are found by AND-ing the bitmap of its prefix with the bitmap of the extension
+ * item, word by word, instead of merging two long tid-lists. The transaction indexes follow the ascending ID order
+ * of the transaction database, so the period of the itemset is checked while the set bits are visited.
+ */
+public class TidBitmap {
+    private long[] words;
+    private int cardinality; // Number of transactions in the set.
+    private int maxPeriod;   // Maximum period of the set, computed by and.
+
+    private TidBitmap(int wordCount) {
+        this.words = new long[wordCount];
+    }
+
+    /**
+     * Builds the bitmap of the transactions listed in a utility-list.
+     *
+     * @param utilityList the utility-list of the itemset.
+     * @param transactionCount the number of transactions of the sub-dataset.
+     * @return the bitmap of the transactions containing the itemset.
+     */
+    public static TidBitmap of(UtilityList utilityList, int transactionCount) {
+        TidBitmap bitmap = new TidBitmap((transactionCount + Long.SIZE - 1) / Long.SIZE);
+        for (int i = 0; i < utilityList.getSize(); i++) {
+            int tid = utilityList.getTids()[i];
+            bitmap.words[tid >>> 6] |= 1L << tid;
+        }
+        bitmap.cardinality = utilityList.getSize();
+        return bitmap;
+    }
+
+    /**
+     * Adds an entry of a transaction appended to the sub-dataset after the bitmap was built, growing the bitmap
+     * when the transaction index is past its last word. Like of, the cardinality counts the entries.
+     *
+     * @param tid the transaction index, not below the indexes in the set.
+     */
+    public void add(int tid) {
+        if (tid >>> 6 >= this.words.length) {
+            this.words = Arrays.copyOf(this.words, Math.max(2 * this.words.length, (tid >>> 6) + 1));
+        }
+        this.words[tid >>> 6] |= 1L << tid;
+        this.cardinality++;
+    }
+
+    /**
+     * Tells whether bitmaps pay off for a sub-dataset: a bitmap takes one bit per transaction, while a tid-list
+     * takes 32 bits per occurrence, so the bitmaps are used when the items occur in more than 1/32 of the
+     * transactions on average.
+     *
+     * @param database the transaction database of the sub-dataset.
+     * @param itemCount the number of distinct items.
+     * @return true if the sub-dataset is dense enough for bitmaps.
+     */
+    public static boolean isDense(TransactionDatabase database, int itemCount) {
+        return (long) database.entryCount() * Integer.SIZE >= (long) itemCount * database.size();
+    }
+
+    /**
+     * Intersects this bitmap with the bitmap of an extension item, checking the period constraint while the common
+     * transactions are visited, and gives up as soon as it is broken: when the first common transaction ID exceeds
+     * maxFirstId, or when the gap between two consecutive common transaction IDs exceeds maxGap.
+     *
+     * @param other the bitmap of the extension item.
+     * @param ids the transaction ID of every transaction index.
+     * @param maxFirstId the largest allowed first transaction ID.
+     * @param maxGap the largest allowed gap between consecutive transaction IDs.
+     * @return the bitmap of the extended itemset, with its cardinality and maximum period, or null if the period
+     *         constraint is broken.
+     */
+    public TidBitmap and(TidBitmap other, int[] ids, int maxFirstId, int maxGap) {
+        // Bitmaps grown by add may have different lengths; the missing words are empty.
+        TidBitmap result = new TidBitmap(Math.min(this.words.length, other.words.length));
+        int previousId = -1;
+        for (int w = 0; w < result.words.length; w++) {
+            long word = this.words[w] & other.words[w];
+            result.words[w] = word;
+            while (word != 0) {
+                int id = ids[(w << 6) + Long.numberOfTrailingZeros(word)];
+                if (previousId < 0 ? id > maxFirstId : id - previousId > maxGap) return null;
+                result.maxPeriod = Math.max(result.maxPeriod, previousId < 0 ? id : id - previousId);
+                previousId = id;
+                result.cardinality++;
+                word &= word - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of transactions in the set.
+     *
+     * @return the cardinality of the bitmap.
+     */
+    public int cardinality() {
+        return this.cardinality;
+    }
+
+    /**
+     * Returns the maximum period of the set, as computed by and: the larger of the first transaction ID and of the
+     * gaps between consecutive transaction IDs. It is 0 for the bitmaps of single items built by of.
+     *
+     * @return the maximum period of the bitmap.
+     */
+    public int maxPeriod() {
+        return this.maxPeriod;
+    }
+}
@@ -0,0 +1,160 @@
+package algorithm;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Collects the K itemsets of highest value found during a search, where the value is the expected utility
+ * for STP-HUPI and the raw utility for STP-HUI. The itemsets are kept in a min-heap, so the lowest value of the
+ * list (the K-th value once the list is full) is read in constant time, and every offer costs O(log K).
+ * Each itemset is registered under a 64-bit canonical key (see itemsetKey), so an itemset reached again through
+ * another path is not offered twice. The keys are held in a primitive set bounded by K, and computing a key
+ * allocates nothing, so the de-duplication does not create garbage during the search.
+ */
+public class TopKCollector {
+    private final int k;
+    private final ToDoubleFunction<Itemset> value;
+    private final PriorityQueue<Entry> heap;
+    private final LongHashSet keys;
+
+    /**
+     * Constructs an empty collector.
+     *
+     * @param k the number of itemsets to keep.
+     * @param value the value of an itemset.
+     */
+    public TopKCollector(int k, ToDoubleFunction<Itemset> value) {
+        this.k = k;
+        this.value = value;
+        this.keys = new LongHashSet(k + 1);
+        this.heap = new PriorityQueue<>(Math.max(k, 1), Comparator.comparingDouble(entry -> value.applyAsDouble(entry.itemset)));
+    }
+
+    /**
+     * Computes the canonical key of an itemset. The key does not depend on the order of the items, so the items
+     * are not sorted: every item is mixed on its own and the mixed values are added up, then the sum is mixed
+     * again with the number of items. Distinct itemsets get the same key with a probability of about 2^-64.
+     *
+     * @param items the items of the itemset, in any order.
+     * @param length the number of items.
+     * @return the 64-bit key of the itemset.
+     */
+    public static long itemsetKey(int[] items, int length) {
+        long sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += mix(items[i] + 0x9E3779B97F4A7C15L);
+        }
+        return mix(sum + length);
+    }
+
+    /**
+     * Tells whether an itemset with the given key is in the list.
+     *
+     * @param key the canonical key of the itemset.
+     * @return true if the itemset is in the list.
+     */
+    public boolean contains(long key) {
+        return this.keys.contains(key);
+    }
+
+    /**
+     * Tells whether an itemset of the given value would enter the list, so that the itemset is only built
+     * when it is kept.
+     *
+     * @param itemsetValue the value of the itemset.
+     * @return true if the list is not full or the value is higher than the lowest value of the list.
+     */
+    public boolean accepts(double itemsetValue) {
+        Entry lowest = this.heap.peek();
+        return this.heap.size() < this.k || (lowest != null && itemsetValue > this.value.applyAsDouble(lowest.itemset));
+    }
+
+    /**
+     * Offers an itemset to the list. While the list is not full, the itemset is added; otherwise it replaces
+     * the lowest itemset of the list if its value is strictly higher.
+     *
+     * @param itemset the itemset.
+     * @param key the canonical key of the itemset, which must not be in the list.
+     * @return true if the itemset entered the list.
+     */
+    public boolean offer(Itemset itemset, long key) {
+        if (this.heap.size() < this.k) {
+            this.heap.offer(new Entry(itemset, key));
+            this.keys.add(key);
+            return true;
+        }
+        Entry lowest = this.heap.peek();
+        if (lowest == null || this.value.applyAsDouble(itemset) <= this.value.applyAsDouble(lowest.itemset)) return false;
+        this.heap.poll();
+        this.keys.remove(lowest.key);
+        this.heap.offer(new Entry(itemset, key));
+        this.keys.add(key);
+        return true;
+    }
+
+    /**
+     * Returns the itemset of lowest value in the list, in constant time.
+     *
+     * @return the lowest itemset, or null if the list is empty.
+     */
+    public Itemset peek() {
+        Entry lowest = this.heap.peek();
+        return lowest == null ? null : lowest.itemset;
+    }
+
+    /**
+     * Tells whether the list holds K itemsets.
+     *
+     * @return true if the list is full.
+     */
+    public boolean isFull() {
+        return this.heap.size() >= this.k;
+    }
+
+    /**
+     * Returns the number of itemsets in the list.
+     *
+     * @return the size of the list.
+     */
+    public int size() {
+        return this.heap.size();
+    }
+
+    /**
+     * Returns the itemsets of the list, in no particular order.
+     *
+     * @return a new list of the itemsets.
+     */
+    public List<Itemset> getItemsets() {
+        List<Itemset> itemsets = new ArrayList<>(this.heap.size());
+        for (Entry entry : this.heap) {
+            itemsets.add(entry.itemset);
+        }
+        return itemsets;
+    }
+
+    /**
+     * Finalizer of the SplitMix64 generator, which spreads every input bit over the whole output.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * An itemset of the list with its canonical key.
+     */
+    private static class Entry {
+        private final Itemset itemset;
+        private final long key;
+
+        private Entry(Itemset itemset, long key) {
+            this.itemset = itemset;
+            this.key = key;
+        }
+    }
+}
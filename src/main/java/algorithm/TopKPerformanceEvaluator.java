@@ -10,12 +10,18 @@ import org.knowm.xchart.style.Styler;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * This class evaluates the performance of two top-K mining algorithms:
  * - STP-HUPI (Short Time Period High Utility Probabilistic Itemsets)
  * - STP-HUI (Short Time Period High Utility Itemsets)
  * It compares them based on runtime and memory consumption.
+ * In joint mode, both measures are mined in one pass per segment (see MiningEngine), recorded as a single series;
+ * in seeding mode, every segment is seeded with the top-K itemsets of the previous one (see rememberTopK).
  */
 @Data
 @AllArgsConstructor
@@ -34,6 +40,13 @@ public class TopKPerformanceEvaluator {
     private int k;
     private int maxPer;
     private float threshold;
+    private boolean projectedMode; // Run both algorithms with the projected-database (EFIM-style) search.
+    private int parallelism = 1; // Worker threads of the projected-database search (1 = sequential).
+    private int windowParallelism = 1; // Algorithm runs executed at the same time across windows (1 = sequential).
+    private boolean streamingMode; // Mine each short-time segment as soon as it is read (sequentially).
+    private boolean jointMode; // Mine both measures in one pass per segment, recorded in runTimes1 and memories1.
+    private boolean seedingMode; // Seed every segment with the top-K itemsets of the previous one (projected mode).
+    private Map<UtilityMeasure, List<List<Integer>>> previousTopK = new EnumMap<>(UtilityMeasure.class); // Seeds.
 
     /**
      * Constructor to initialize the evaluator with dataset path, top-K value, and max period.
@@ -48,37 +61,217 @@ public class TopKPerformanceEvaluator {
     /**
      * Runs the evaluation process by loading the dataset, transforming it into short-time segments,
      * and executing both algorithms on each segment.
+     * When windowParallelism is above one, the segments are mined concurrently (see runConcurrently).
+     * In streaming mode, the dataset is never loaded as a whole (see runStreaming).
      */
     public void run() {
         try {
+            if (this.streamingMode) {
+                this.runStreaming();
+                return;
+            }
             this.transactions = DatasetReader.readDataset(this.filePath);
-            if (DatasetReader.extractDatasetName(filePath).equals("korasak")) {
+            if (this.windowParallelism > 1) {
+                this.runConcurrently();
+            } else if (DatasetReader.extractDatasetName(filePath).equals("korasak")) {
                 for (int i = 0; i < 6; i++) {
                     System.out.println("\n-------------------------------------------- Processing transaction list " + i + "--------------------------------------------\n");
                     System.out.println("No. of transactions: " + transactions.get(i).size());
                     this.shortTimeTransactions.put(i+1, transactions.get(i).size());
                     if (!transactions.isEmpty()) {
-                        this.runStpHUPI(transactions.get(i)); // [1] Short Time Period High Utility Probabilities Itemsets
-                        this.runStpHUI(transactions.get(i)); // [2] Short Time Period High Utility Itemsets
+                        this.runWindow(transactions.get(i));
                     }
                 }
             } else {
                 int i = 1;
                 for (List<Transaction> transactions : this.transactions) {
-                    System.out.println("\n-------------------------------------------- Processing transaction list " + i + "--------------------------------------------\n");
-                    System.out.println("No. of transactions: " + transactions.size());
-                    this.shortTimeTransactions.put(i, transactions.size());
-                    if (!transactions.isEmpty()) {
-                        this.runStpHUPI(transactions); // [1] Short Time Period High Utility Probabilities Itemsets
-                        this.runStpHUI(transactions); // [2] Short Time Period High Utility Itemsets
-                    }
+                    this.processWindow(i, transactions);
                     i += 1;
                 }
             }
 
         } catch (IOException e) {
             System.err.println("Error reading the dataset: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Evaluation interrupted: " + e.getMessage());
+        } catch (ExecutionException e) {
+            System.err.println("Error mining a short-time dataset: " + e.getCause());
+        }
+    }
+
+    /**
+     * Mines the short-time segments while the dataset is being read. The reader parses the file line by line,
+     * the window partitioner closes the weekly or hourly segments by timestamp, and both algorithms run on each
+     * segment as soon as it is closed, so only the open segment is kept in memory. The segments are mined
+     * sequentially in this mode.
+     *
+     * @throws IOException if there is an error reading the dataset.
+     */
+    private void runStreaming() throws IOException {
+        DatasetReader.streamDataset(this.filePath,
+                window -> this.processWindow(this.shortTimeTransactions.size() + 1, window));
+        System.out.println("Short Time Transactions processed: " + this.shortTimeTransactions.size());
+    }
+
+    /**
+     * Runs both algorithms on one short-time segment and records its size.
+     *
+     * @param number the number of the segment (starting from 1).
+     * @param transactions the transactions of the segment.
+     */
+    private void processWindow(int number, List<Transaction> transactions) {
+        System.out.println("\n-------------------------------------------- Processing transaction list " + number + "--------------------------------------------\n");
+        System.out.println("No. of transactions: " + transactions.size());
+        this.shortTimeTransactions.put(number, transactions.size());
+        if (!transactions.isEmpty()) {
+            this.runWindow(transactions);
+        }
+    }
+
+    /**
+     * Runs both algorithms on one short-time segment: as two separate runs, or as one joint run in joint mode.
+     *
+     * @param transactions the transactions of the segment.
+     */
+    private void runWindow(List<Transaction> transactions) {
+        if (this.jointMode) {
+            this.runJoint(transactions); // [1] + [2] in a single pass
+        } else {
+            this.runStpHUPI(transactions); // [1] Short Time Period High Utility Probabilities Itemsets
+            this.runStpHUI(transactions); // [2] Short Time Period High Utility Itemsets
+        }
+    }
+
+    /**
+     * Mines the short-time segments concurrently on a bounded thread pool, one task per algorithm and segment
+     * (per segment in joint mode). Every run builds its own transaction database and never modifies the shared
+     * transactions, so the runs are isolated; the results are still reported in segment order. Since the runs
+     * overlap, the measured memory usage is only indicative in this mode.
+     *
+     * @throws InterruptedException if the evaluation is interrupted while waiting for a run.
+     * @throws ExecutionException if a run fails.
+     */
+    private void runConcurrently() throws InterruptedException, ExecutionException {
+        List<List<Transaction>> windows = this.evaluatedWindows();
+
+        ExecutorService executor = Executors.newFixedThreadPool(this.windowParallelism);
+        try {
+            List<Future<StpHupiAlgorithm>> stpHUPIRuns = new ArrayList<>();
+            List<Future<StpHuiAlgorithm>> stpHUIRuns = new ArrayList<>();
+            List<Future<MiningEngine>> jointRuns = new ArrayList<>();
+            for (List<Transaction> window : windows) {
+                if (this.jointMode) {
+                    jointRuns.add(window.isEmpty() ? null : executor.submit(() -> this.mineJoint(window)));
+                } else {
+                    stpHUPIRuns.add(window.isEmpty() ? null : executor.submit(() -> this.mineStpHUPI(window)));
+                    stpHUIRuns.add(window.isEmpty() ? null : executor.submit(() -> this.mineStpHUI(window)));
+                }
+            }
+
+            for (int i = 0; i < windows.size(); i++) {
+                System.out.println("\n-------------------------------------------- Processing transaction list " + (i + 1) + "--------------------------------------------\n");
+                System.out.println("No. of transactions: " + windows.get(i).size());
+                this.shortTimeTransactions.put(i + 1, windows.get(i).size());
+                if (!windows.get(i).isEmpty() && this.jointMode) {
+                    this.printJointHeader();
+                    this.recordJoint(jointRuns.get(i).get());
+                } else if (!windows.get(i).isEmpty()) {
+                    System.out.println("\nRunning [1] Short-time Top-" + this.k + " Periodic High-utility Probabilistic Itemsets...");
+                    this.recordStpHUPI(stpHUPIRuns.get(i).get());
+                    System.out.println("\nRunning [2] Short-time Top-" + this.k + " Periodic High-utility Itemsets...");
+                    this.recordStpHUI(stpHUIRuns.get(i).get());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the short-time segments of the loaded dataset that are evaluated (the first six for korasak).
+     */
+    private List<List<Transaction>> evaluatedWindows() {
+        boolean korasak = DatasetReader.extractDatasetName(this.filePath).equals("korasak");
+        return korasak
+                ? this.transactions.subList(0, Math.min(6, this.transactions.size()))
+                : this.transactions;
+    }
+
+    /**
+     * Runs a parameter sweep over the given k and maxPer values. The dataset is read once, and every segment is
+     * mined once for all the combinations and both measures (see MiningEngine.sweep); the top-k size and the
+     * lowest value of every combination are printed. The runtime and memory usage of the sweep of every segment
+     * are recorded in runTimes1 and memories1.
+     *
+     * @param ks the top-K values of the sweep.
+     * @param maxPers the maximum periods of the sweep.
+     */
+    public void runSweep(int[] ks, int[] maxPers) {
+        try {
+            this.transactions = DatasetReader.readDataset(this.filePath);
+        } catch (IOException e) {
+            System.err.println("Error reading the dataset: " + e.getMessage());
+            return;
+        }
+        List<List<Transaction>> windows = this.evaluatedWindows();
+        for (int i = 0; i < windows.size(); i++) {
+            System.out.println("\n-------------------------------------------- Sweeping transaction list " + (i + 1) + "--------------------------------------------\n");
+            System.out.println("No. of transactions: " + windows.get(i).size());
+            this.shortTimeTransactions.put(i + 1, windows.get(i).size());
+            if (windows.get(i).isEmpty()) continue;
+
+            MiningEngine engine = MiningEngine.sweep(new ArrayList<>(windows.get(i)), ks, maxPers, this.threshold,
+                    UtilityMeasure.EXPECTED_UTILITY, UtilityMeasure.UTILITY);
+            System.out.printf("Execution Time: %.2f s%n", engine.getRunTime());
+            System.out.printf("Memory Usage: %.2f MB%n", engine.getMemoryUsed());
+            for (int maxPer : maxPers) {
+                for (int k : ks) {
+                    List<Itemset> stpHUPI = engine.getResults(UtilityMeasure.EXPECTED_UTILITY, k, maxPer);
+                    List<Itemset> stpHUI = engine.getResults(UtilityMeasure.UTILITY, k, maxPer);
+                    System.out.printf("k = %d, maxPer = %d: [1] %d itemsets, lowest expected utility %.2f; "
+                                    + "[2] %d itemsets, lowest utility %d%n", k, maxPer,
+                            stpHUPI.size(), stpHUPI.isEmpty() ? 0f : stpHUPI.get(stpHUPI.size() - 1).getExpectedUtility(),
+                            stpHUI.size(), stpHUI.isEmpty() ? 0 : stpHUI.get(stpHUI.size() - 1).getUtility());
+                }
+            }
+            this.runTimes1.add(engine.getRunTime());
+            this.memories1.add(engine.getMemoryUsed());
+        }
+    }
+
+    /**
+     * Mines a sliding window over the whole dataset: the segments are read once and concatenated, and a window of
+     * windowLength seconds advances by step seconds (see SlidingWindowMiner), reusing the item statistics and, in
+     * projected mode, the top-K itemsets of the previous position as seeds. Both measures are mined in a single pass per position; the runtime
+     * (including the maintenance of the state) and memory usage of every position are recorded in runTimes1 and
+     * memories1.
+     *
+     * @param windowLength the length of the window (in seconds).
+     * @param step the advance of the window (in seconds).
+     */
+    public void runSliding(long windowLength, long step) {
+        try {
+            this.transactions = DatasetReader.readDataset(this.filePath);
+        } catch (IOException e) {
+            System.err.println("Error reading the dataset: " + e.getMessage());
+            return;
         }
+        List<Transaction> allTransactions = new ArrayList<>();
+        this.evaluatedWindows().forEach(allTransactions::addAll);
+
+        SlidingWindowMiner miner = new SlidingWindowMiner(this.k, this.maxPer, this.threshold, windowLength, step,
+                UtilityMeasure.EXPECTED_UTILITY, UtilityMeasure.UTILITY);
+        miner.setProjectedMode(this.projectedMode);
+        miner.setParallelism(this.parallelism);
+        miner.mine(allTransactions, engine -> {
+            int number = this.shortTimeTransactions.size() + 1;
+            System.out.println("\n-------------------------------------------- Processing window position " + number + "--------------------------------------------\n");
+            System.out.println("No. of transactions: " + engine.getTransactions().size());
+            this.shortTimeTransactions.put(number, engine.getTransactions().size());
+            this.recordJoint(engine);
+            this.runTimes1.set(this.runTimes1.size() - 1, miner.getRunTime());
+        });
     }
 
     /**
@@ -86,8 +279,28 @@ public class TopKPerformanceEvaluator {
      */
     private void runStpHUPI(List<Transaction> transactions) {
         System.out.println("\nRunning [1] Short-time Top-" + this.k + " Periodic High-utility Probabilistic Itemsets...");
+        StpHupiAlgorithm stpHUPI = this.mineStpHUPI(transactions);
+        this.recordStpHUPI(stpHUPI);
+        this.rememberTopK(UtilityMeasure.EXPECTED_UTILITY, stpHUPI.getResults());
+    }
+
+    /**
+     * Mines a transaction list with the STP-HUPI algorithm without printing the results.
+     */
+    private StpHupiAlgorithm mineStpHUPI(List<Transaction> transactions) {
         StpHupiAlgorithm stpHUPI = new StpHupiAlgorithm(new ArrayList<>(transactions), k, maxPer, threshold);
-        stpHUPI.evaluateTopKPerformance();
+        stpHUPI.setProjectedMode(this.projectedMode);
+        stpHUPI.setParallelism(this.parallelism);
+        stpHUPI.setSeedItemsets(this.seedItemsets(UtilityMeasure.EXPECTED_UTILITY));
+        stpHUPI.mineTopK();
+        return stpHUPI;
+    }
+
+    /**
+     * Prints the results of a finished STP-HUPI run and records its runtime and memory usage.
+     */
+    private void recordStpHUPI(StpHupiAlgorithm stpHUPI) {
+        stpHUPI.printResults();
         this.runTimes1.add(stpHUPI.getRunTime());
         this.memories1.add(stpHUPI.getMemoryUsed());
     }
@@ -97,12 +310,99 @@ public class TopKPerformanceEvaluator {
      */
     private void runStpHUI(List<Transaction> transactions) {
         System.out.println("\nRunning [2] Short-time Top-" + this.k + " Periodic High-utility Itemsets...");
+        StpHuiAlgorithm stpHUI = this.mineStpHUI(transactions);
+        this.recordStpHUI(stpHUI);
+        this.rememberTopK(UtilityMeasure.UTILITY, stpHUI.getResults());
+    }
+
+    /**
+     * Mines a transaction list with the STP-HUI algorithm without printing the results.
+     */
+    private StpHuiAlgorithm mineStpHUI(List<Transaction> transactions) {
         StpHuiAlgorithm stpHUI = new StpHuiAlgorithm(new ArrayList<>(transactions), k, maxPer, threshold);
-        stpHUI.evaluateTopKPerformance();
+        stpHUI.setProjectedMode(this.projectedMode);
+        stpHUI.setParallelism(this.parallelism);
+        stpHUI.setSeedItemsets(this.seedItemsets(UtilityMeasure.UTILITY));
+        stpHUI.mineTopK();
+        return stpHUI;
+    }
+
+    /**
+     * Prints the results of a finished STP-HUI run and records its runtime and memory usage.
+     */
+    private void recordStpHUI(StpHuiAlgorithm stpHUI) {
+        stpHUI.printResults();
         this.runTimes2.add(stpHUI.getRunTime());
         this.memories2.add(stpHUI.getMemoryUsed());
     }
 
+    /**
+     * Runs both algorithms on a given transaction list in a single pass and records its runtime and memory usage.
+     */
+    private void runJoint(List<Transaction> transactions) {
+        this.printJointHeader();
+        MiningEngine engine = this.mineJoint(transactions);
+        this.recordJoint(engine);
+        this.rememberTopK(UtilityMeasure.EXPECTED_UTILITY, engine.getResults(UtilityMeasure.EXPECTED_UTILITY));
+        this.rememberTopK(UtilityMeasure.UTILITY, engine.getResults(UtilityMeasure.UTILITY));
+    }
+
+    /**
+     * Prints the header of a joint run.
+     */
+    private void printJointHeader() {
+        System.out.println("\nRunning [1] + [2] Short-time Top-" + this.k + " Periodic High-utility (Probabilistic) Itemsets in a single pass...");
+    }
+
+    /**
+     * Mines a transaction list for both the expected and the raw utility in a single pass without printing the results.
+     */
+    private MiningEngine mineJoint(List<Transaction> transactions) {
+        MiningEngine engine = new MiningEngine(new ArrayList<>(transactions), k, maxPer, threshold,
+                UtilityMeasure.EXPECTED_UTILITY, UtilityMeasure.UTILITY);
+        engine.setProjectedMode(this.projectedMode);
+        engine.setParallelism(this.parallelism);
+        engine.setSeedItemsets(this.seedItemsets(UtilityMeasure.EXPECTED_UTILITY, UtilityMeasure.UTILITY));
+        engine.mineTopK();
+        return engine;
+    }
+
+    /**
+     * Prints the results of a finished joint run for both measures and records its runtime and memory usage.
+     */
+    private void recordJoint(MiningEngine engine) {
+        System.out.println("\n[1] Short-time Top-" + this.k + " Periodic High-utility Probabilistic Itemsets:");
+        engine.printResults(UtilityMeasure.EXPECTED_UTILITY);
+        System.out.println("\n[2] Short-time Top-" + this.k + " Periodic High-utility Itemsets:");
+        engine.printResults(UtilityMeasure.UTILITY);
+        this.runTimes1.add(engine.getRunTime());
+        this.memories1.add(engine.getMemoryUsed());
+    }
+
+    /**
+     * Keeps the top-K itemsets of a measure in seeding mode; they are evaluated exactly on the next segment, so
+     * that its search starts at their K-th value. Only the sequential runs of the projected-database search are
+     * seeded: its results are unchanged, whereas a higher starting threshold could change those of the heuristic
+     * tree growth.
+     */
+    private void rememberTopK(UtilityMeasure measure, List<Itemset> results) {
+        if (!this.seedingMode || !this.projectedMode) return;
+        List<List<Integer>> itemsets = new ArrayList<>(results.size());
+        results.forEach(itemset -> itemsets.add(itemset.getItems()));
+        this.previousTopK.put(measure, itemsets);
+    }
+
+    /**
+     * Returns the top-K itemsets of the previous segment for the given measures, or null if there are none.
+     */
+    private List<List<Integer>> seedItemsets(UtilityMeasure... measures) {
+        List<List<Integer>> seeds = new ArrayList<>();
+        for (UtilityMeasure measure : measures) {
+            seeds.addAll(this.previousTopK.getOrDefault(measure, Collections.emptyList()));
+        }
+        return seeds.isEmpty() ? null : seeds;
+    }
+
     /**
      * Displays evaluation results by generating comparison charts for:
      * - Short-time transaction distribution
@@ -167,8 +467,12 @@ public class TopKPerformanceEvaluator {
         chart.getStyler().setAvailableSpaceFill(0.3);
         chart.getStyler().setOverlapped(false);
 
-        chart.addSeries("STP-HUPI", weeks, this.memories1);
-        chart.addSeries("STP-HUI", weeks, this.memories2);
+        if (this.jointMode) {
+            chart.addSeries("STP-HUPI + STP-HUI (single pass)", weeks, this.memories1);
+        } else {
+            chart.addSeries("STP-HUPI", weeks, this.memories1);
+            chart.addSeries("STP-HUI", weeks, this.memories2);
+        }
 
         new SwingWrapper<>(chart).displayChart();
     }
@@ -195,8 +499,12 @@ public class TopKPerformanceEvaluator {
         chart.getStyler().setAvailableSpaceFill(0.3);
         chart.getStyler().setOverlapped(false);
 
-        chart.addSeries("STP-HUPI", weeks, this.runTimes1);
-        chart.addSeries("STP-HUI", weeks, this.runTimes2);
+        if (this.jointMode) {
+            chart.addSeries("STP-HUPI + STP-HUI (single pass)", weeks, this.runTimes1);
+        } else {
+            chart.addSeries("STP-HUPI", weeks, this.runTimes1);
+            chart.addSeries("STP-HUI", weeks, this.runTimes2);
+        }
 
         new SwingWrapper<>(chart).displayChart();
     }
@@ -0,0 +1,263 @@
+package algorithm;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Represents the transactions of a short-time sub-dataset in an append-only columnar layout.
+ * The items of all transactions are stored in a single int array, in ascending order within each transaction,
+ * together with a parallel array of utilities. The offsets array gives the start of every transaction in
+ * both arrays (the offset after the last transaction is the total number of entries), so the miners work on
+ * primitive values instead of boxed lists. The positive transaction utility (PTU) and absolute negative transaction utility (ANTU)
+ * of every transaction are computed once when the database is built.
+ * Transactions are stored in ascending ID order, so the tid-lists built over the database list the
+ * transaction IDs in ascending order as well, and periods can be checked while the lists are scanned.
+ * A transaction with a higher ID than all the others can be appended in place (see append); the arrays grow by
+ * doubling, so they may be longer than size() and entryCount().
+ */
+@Getter
+public class TransactionDatabase {
+    private int size;                   // Number of transactions.
+    private int[] ids;                  // Transaction IDs.
+    private int[] transactionUtilities; // Transaction utilities.
+    private int[] offsets;              // Start of each transaction in items and utilities.
+    private int[] items;                // Items of all transactions, ascending within each transaction.
+    private int[] utilities;            // Utilities aligned with items.
+    private int[] ptus;                 // Positive transaction utilities.
+    private int[] antus;                // Absolute negative transaction utilities.
+
+    /**
+     * Constructs a columnar database from the given transactions, sorting the transactions by ID
+     * and the items of each transaction.
+     *
+     * @param transactions the transactions of the sub-dataset.
+     */
+    public TransactionDatabase(List<Transaction> transactions) {
+        if (!isSortedById(transactions)) {
+            transactions = new ArrayList<>(transactions);
+            transactions.sort(Comparator.comparingInt(Transaction::getId));
+        }
+        int size = transactions.size();
+        this.size = size;
+        this.ids = new int[size];
+        this.transactionUtilities = new int[size];
+        this.offsets = new int[size + 1];
+        for (int tid = 0; tid < size; tid++) {
+            this.offsets[tid + 1] = this.offsets[tid] + transactions.get(tid).getItems().size();
+        }
+        this.items = new int[this.offsets[size]];
+        this.utilities = new int[this.offsets[size]];
+
+        for (int tid = 0; tid < size; tid++) {
+            Transaction transaction = transactions.get(tid);
+            this.ids[tid] = transaction.getId();
+            this.transactionUtilities[tid] = transaction.getTransactionUtility();
+
+            // Sort the positions of the transaction by item, keeping each utility with its item.
+            int length = transaction.getItems().size();
+            long[] sortedPositions = new long[length];
+            for (int i = 0; i < length; i++) {
+                sortedPositions[i] = ((long) transaction.getItems().get(i) << 32) | i;
+            }
+            Arrays.sort(sortedPositions);
+            for (int i = 0; i < length; i++) {
+                int position = (int) sortedPositions[i];
+                this.items[this.offsets[tid] + i] = (int) (sortedPositions[i] >>> 32);
+                this.utilities[this.offsets[tid] + i] = transaction.getUtilities().get(position);
+            }
+        }
+        this.ptus = computePTUs(this.offsets, this.utilities);
+        this.antus = computeANTUs(this.offsets, this.utilities);
+    }
+
+    private static boolean isSortedById(List<Transaction> transactions) {
+        for (int tid = 1; tid < transactions.size(); tid++) {
+            if (transactions.get(tid).getId() < transactions.get(tid - 1).getId()) return false;
+        }
+        return true;
+    }
+
+    private TransactionDatabase(int[] ids, int[] transactionUtilities, int[] offsets, int[] items, int[] utilities) {
+        this.size = ids.length;
+        this.ids = ids;
+        this.transactionUtilities = transactionUtilities;
+        this.offsets = offsets;
+        this.items = items;
+        this.utilities = utilities;
+        this.ptus = computePTUs(offsets, utilities);
+        this.antus = computeANTUs(offsets, utilities);
+    }
+
+    /**
+     * Computes the positive transaction utility (PTU) of every transaction by summing its positive utilities.
+     *
+     * @param offsets the start of each transaction in the utilities array.
+     * @param utilities the utilities of all transactions.
+     * @return the PTU of every transaction.
+     */
+    private static int[] computePTUs(int[] offsets, int[] utilities) {
+        int[] ptus = new int[offsets.length - 1];
+        for (int tid = 0; tid < ptus.length; tid++) {
+            for (int i = offsets[tid]; i < offsets[tid + 1]; i++) {
+                ptus[tid] += Math.max(utilities[i], 0);
+            }
+        }
+        return ptus;
+    }
+
+    /**
+     * Computes the absolute negative transaction utility (ANTU) of every transaction by summing
+     * the absolute values of its negative utilities.
+     *
+     * @param offsets the start of each transaction in the utilities array.
+     * @param utilities the utilities of all transactions.
+     * @return the ANTU of every transaction.
+     */
+    private static int[] computeANTUs(int[] offsets, int[] utilities) {
+        int[] antus = new int[offsets.length - 1];
+        for (int tid = 0; tid < antus.length; tid++) {
+            for (int i = offsets[tid]; i < offsets[tid + 1]; i++) {
+                antus[tid] -= Math.min(utilities[i], 0);
+            }
+        }
+        return antus;
+    }
+
+    /**
+     * Returns the number of transactions in the database.
+     *
+     * @return the number of transactions.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the number of entries (items) of all the transactions in the database.
+     *
+     * @return the number of entries.
+     */
+    public int entryCount() {
+        return this.offsets[this.size];
+    }
+
+    /**
+     * Appends a transaction after the others, growing the arrays by doubling when they are full, so that a
+     * transaction is appended in amortized constant time per entry instead of copying the database.
+     *
+     * @param id the transaction ID, above the IDs of the database.
+     * @param transactionUtility the transaction utility.
+     * @param items the items, in ascending order.
+     * @param utilities the utilities aligned with the items.
+     * @return the index of the new transaction.
+     */
+    public int append(int id, int transactionUtility, int[] items, int[] utilities) {
+        if (this.size > 0 && id <= this.ids[this.size - 1]) {
+            throw new IllegalArgumentException("Transaction " + id + " does not follow transaction " + this.ids[this.size - 1]);
+        }
+        if (this.size == this.ids.length) {
+            int capacity = Math.max(2 * this.size, 16);
+            this.ids = Arrays.copyOf(this.ids, capacity);
+            this.transactionUtilities = Arrays.copyOf(this.transactionUtilities, capacity);
+            this.offsets = Arrays.copyOf(this.offsets, capacity + 1);
+            this.ptus = Arrays.copyOf(this.ptus, capacity);
+            this.antus = Arrays.copyOf(this.antus, capacity);
+        }
+        int start = this.offsets[this.size];
+        if (start + items.length > this.items.length) {
+            int capacity = Math.max(2 * this.items.length, start + items.length);
+            this.items = Arrays.copyOf(this.items, capacity);
+            this.utilities = Arrays.copyOf(this.utilities, capacity);
+        }
+        System.arraycopy(items, 0, this.items, start, items.length);
+        System.arraycopy(utilities, 0, this.utilities, start, utilities.length);
+        this.ids[this.size] = id;
+        this.transactionUtilities[this.size] = transactionUtility;
+        this.offsets[this.size + 1] = start + items.length;
+        this.ptus[this.size] = 0;
+        this.antus[this.size] = 0;
+        for (int utility : utilities) {
+            this.ptus[this.size] += Math.max(utility, 0);
+            this.antus[this.size] -= Math.min(utility, 0);
+        }
+        return this.size++;
+    }
+
+    /**
+     * Returns the position of the first entry of a transaction in the items and utilities arrays.
+     *
+     * @param tid the transaction index.
+     * @return the start position (inclusive).
+     */
+    public int start(int tid) {
+        return this.offsets[tid];
+    }
+
+    /**
+     * Returns the position after the last entry of a transaction in the items and utilities arrays.
+     *
+     * @param tid the transaction index.
+     * @return the end position (exclusive).
+     */
+    public int end(int tid) {
+        return this.offsets[tid + 1];
+    }
+
+    /**
+     * Returns a new database in which every item is replaced by its code, and items without a code are removed
+     * (with their utilities). The items of each transaction are sorted again by code. Transactions left without
+     * items are removed, and the other transactions keep their order.
+     *
+     * @param code the function giving the code of an item, or a negative value for the items to remove.
+     * @return the recoded database.
+     */
+    public TransactionDatabase recode(IntUnaryOperator code) {
+        int[] newIds = new int[this.size()];
+        int[] newTransactionUtilities = new int[this.size()];
+        int[] newOffsets = new int[this.size() + 1];
+        int[] newItems = new int[this.items.length];
+        int[] newUtilities = new int[this.items.length];
+        int count = 0;
+        int position = 0;
+        for (int tid = 0; tid < this.size(); tid++) {
+            int start = position;
+            for (int i = this.offsets[tid]; i < this.offsets[tid + 1]; i++) {
+                int newItem = code.applyAsInt(this.items[i]);
+                if (newItem >= 0) {
+                    newItems[position] = newItem;
+                    newUtilities[position] = this.utilities[i];
+                    position++;
+                }
+            }
+            if (position == start) continue;
+            sortByItem(newItems, newUtilities, start, position);
+            newIds[count] = this.ids[tid];
+            newTransactionUtilities[count] = this.transactionUtilities[tid];
+            count++;
+            newOffsets[count] = position;
+        }
+        return new TransactionDatabase(Arrays.copyOf(newIds, count), Arrays.copyOf(newTransactionUtilities, count),
+                Arrays.copyOf(newOffsets, count + 1), Arrays.copyOf(newItems, position),
+                Arrays.copyOf(newUtilities, position));
+    }
+
+    /**
+     * Sorts a range of items in ascending order, keeping each utility with its item.
+     */
+    private static void sortByItem(int[] items, int[] utilities, int from, int to) {
+        long[] sortedPositions = new long[to - from];
+        for (int i = from; i < to; i++) {
+            sortedPositions[i - from] = ((long) items[i] << 32) | utilities[i] & 0xFFFFFFFFL;
+        }
+        Arrays.sort(sortedPositions);
+        for (int i = from; i < to; i++) {
+            items[i] = (int) (sortedPositions[i - from] >>> 32);
+            utilities[i] = (int) sortedPositions[i - from];
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package algorithm;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Parses a dataset file in the "item_list: transactionUtility: utility_list: timestamp" format.
+ * The file is memory-mapped through a FileChannel (in chunks, so files larger than 2 GB are supported) and its
+ * bytes are scanned directly into primitive buffers, without splitting lines into strings. Every transaction
+ * keeps its items and utilities in int arrays behind read-only list views.
+ * Lines that do not have the four fields, whose numbers are invalid, or whose item and utility lists have
+ * different lengths are skipped and counted instead of being reported one by one. As in the text reader,
+ * the ID of a transaction is its line number.
+ */
+public class TransactionFileParser {
+    private static final int CHUNK_SIZE = 1 << 28; // Bytes mapped at once (256 MB).
+
+    private int malformedLines;      // Number of malformed lines skipped.
+    private int firstMalformedLine;  // Line number of the first malformed line (0 if none).
+
+    private MappedByteBuffer buffer; // Chunk being parsed.
+    private int cursor;              // Position of the next byte to read in the chunk.
+    private int lineEnd;             // End of the line being parsed in the chunk.
+    private int[] items = new int[64];
+    private int[] utilities = new int[64];
+    private int length;              // Number of values read by the last parseIntegerList call.
+    private boolean stopped;         // Set by stop() to skip the rest of the file.
+
+    /**
+     * Parses the given dataset file and hands every well-formed transaction to the consumer, in file order.
+     *
+     * @param filepath the path of the dataset file.
+     * @param consumer the consumer receiving the transactions.
+     * @throws IOException if there is an error reading the file.
+     */
+    public void parse(String filepath, Consumer<Transaction> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filepath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            int lineNumber = 0;
+            this.stopped = false;
+            this.malformedLines = 0;
+            this.firstMalformedLine = 0;
+            while (position < size && !this.stopped) {
+                int chunkLength = (int) Math.min(CHUNK_SIZE, size - position);
+                boolean lastChunk = position + chunkLength == size;
+                this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, chunkLength);
+
+                // Parse the complete lines of the chunk; an incomplete last line is mapped again with the next chunk.
+                int lineStart = 0;
+                for (int i = 0; i < chunkLength && !this.stopped; i++) {
+                    if (this.buffer.get(i) == '\n') {
+                        this.parseLine(lineStart, i, ++lineNumber, consumer);
+                        lineStart = i + 1;
+                    }
+                }
+                if (this.stopped) break;
+                if (lastChunk && lineStart < chunkLength) {
+                    this.parseLine(lineStart, chunkLength, ++lineNumber, consumer);
+                    lineStart = chunkLength;
+                } else if (lineStart == 0) {
+                    throw new IOException("Line " + (lineNumber + 1) + " is longer than " + CHUNK_SIZE + " bytes");
+                }
+                position += lineStart;
+            }
+        } finally {
+            this.buffer = null;
+        }
+    }
+
+    /**
+     * Stops the parsing in progress after the current line, e.g. once the consumer has all the transactions it needs.
+     */
+    public void stop() {
+        this.stopped = true;
+    }
+
+    /**
+     * Returns the number of malformed lines skipped by the last parse.
+     *
+     * @return the number of malformed lines.
+     */
+    public int getMalformedLines() {
+        return this.malformedLines;
+    }
+
+    /**
+     * Returns the line number of the first malformed line skipped by the last parse.
+     *
+     * @return the line number, or 0 if no line was malformed.
+     */
+    public int getFirstMalformedLine() {
+        return this.firstMalformedLine;
+    }
+
+    /**
+     * Reports the malformed lines skipped by the last parse on the standard error stream, if there are any.
+     */
+    public void reportMalformedLines() {
+        if (this.malformedLines > 0) {
+            System.err.println("Skipped " + this.malformedLines + " malformed line(s), first at line "
+                    + this.firstMalformedLine);
+        }
+    }
+
+    /**
+     * Parses one line and hands the transaction to the consumer, or counts the line as malformed.
+     * Blank lines are ignored.
+     */
+    private void parseLine(int start, int end, int lineNumber, Consumer<Transaction> consumer) {
+        this.cursor = start;
+        this.lineEnd = end;
+        this.skipSpaces();
+        if (this.cursor == this.lineEnd) return;
+
+        Transaction transaction = this.parseTransaction(lineNumber);
+        if (transaction != null) {
+            consumer.accept(transaction);
+        } else {
+            if (this.malformedLines == 0) this.firstMalformedLine = lineNumber;
+            this.malformedLines++;
+        }
+    }
+
+    /**
+     * Parses the four fields of the current line.
+     *
+     * @param transactionID the ID to assign to the transaction.
+     * @return the transaction, or null if the line is malformed.
+     */
+    private Transaction parseTransaction(int transactionID) {
+        this.items = this.parseIntegerList(this.items);
+        int itemCount = this.length;
+        if (itemCount <= 0 || !this.expect(':')) return null;
+
+        long transactionUtility = this.parseNumber();
+        if (transactionUtility == Long.MIN_VALUE || !this.fitsInt(transactionUtility) || !this.expect(':')) return null;
+
+        this.utilities = this.parseIntegerList(this.utilities);
+        if (this.length < 0 || this.length != itemCount || !this.expect(':')) return null;
+
+        long timestamp = this.parseNumber();
+        this.skipSpaces();
+        if (timestamp == Long.MIN_VALUE || this.cursor != this.lineEnd) return null;
+
+        return new Transaction(transactionID, new IntArrayView(Arrays.copyOf(this.items, itemCount), 0, itemCount),
+                new IntArrayView(Arrays.copyOf(this.utilities, itemCount), 0, itemCount), (int) transactionUtility, timestamp);
+    }
+
+    /**
+     * Reads space-separated integers until the next colon or the end of the line.
+     * The number of values read is stored in length, or -1 if a value is invalid.
+     *
+     * @param target the buffer receiving the values.
+     * @return the buffer (grown if needed).
+     */
+    private int[] parseIntegerList(int[] target) {
+        this.length = 0;
+        this.skipSpaces();
+        while (this.cursor < this.lineEnd && this.buffer.get(this.cursor) != ':') {
+            long value = this.parseNumber();
+            if (value == Long.MIN_VALUE || !this.fitsInt(value)) {
+                this.length = -1;
+                return target;
+            }
+            if (this.length == target.length) target = Arrays.copyOf(target, target.length * 2);
+            target[this.length++] = (int) value;
+            this.skipSpaces();
+        }
+        return target;
+    }
+
+    /**
+     * Reads an optionally negative decimal number, surrounded by optional spaces.
+     *
+     * @return the number, or Long.MIN_VALUE if there is no valid number at the cursor.
+     */
+    private long parseNumber() {
+        this.skipSpaces();
+        boolean negative = this.cursor < this.lineEnd && this.buffer.get(this.cursor) == '-';
+        if (negative) this.cursor++;
+        int digitsStart = this.cursor;
+        long value = 0;
+        while (this.cursor < this.lineEnd) {
+            int digit = this.buffer.get(this.cursor) - '0';
+            if (digit < 0 || digit > 9) break;
+            if (value > (Long.MAX_VALUE - digit) / 10) return Long.MIN_VALUE;
+            value = value * 10 + digit;
+            this.cursor++;
+        }
+        if (this.cursor == digitsStart) return Long.MIN_VALUE;
+        // A number must be followed by a separator.
+        if (this.cursor < this.lineEnd && !this.isSpace(this.buffer.get(this.cursor))
+                && this.buffer.get(this.cursor) != ':') return Long.MIN_VALUE;
+        this.skipSpaces();
+        return negative ? -value : value;
+    }
+
+    private boolean expect(char separator) {
+        if (this.cursor >= this.lineEnd || this.buffer.get(this.cursor) != separator) return false;
+        this.cursor++;
+        return true;
+    }
+
+    private void skipSpaces() {
+        while (this.cursor < this.lineEnd && this.isSpace(this.buffer.get(this.cursor))) {
+            this.cursor++;
+        }
+    }
+
+    private boolean isSpace(byte value) {
+        return value == ' ' || value == '\t' || value == '\r';
+    }
+
+    private boolean fitsInt(long value) {
+        return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+    }
+}
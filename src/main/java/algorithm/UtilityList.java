@@ -0,0 +1,188 @@
+package algorithm;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Represents the utility-list of an itemset in a short-time sub-dataset.
+ * The list holds one entry for each transaction that contains the itemset, storing:
+ * - the transaction index (position of the transaction in the processed sub-dataset),
+ * - the utility of the itemset in that transaction,
+ * - the remaining positive utility (RPU) of the items that are not part of the itemset,
+ * - the positive transaction utility (PTU) and absolute negative transaction utility (ANTU).
+ * Entries are kept in ascending transaction order, so the utility-list of an extended itemset
+ * is obtained by joining the utility-list of its prefix with the utility-list of the extension item.
+ */
+@Getter
+public class UtilityList {
+    private int size;
+    private int[] tids;
+    private int[] utilities;
+    private int[] remainingUtilities;
+    private float[] ptus;
+    private float[] antus;
+
+    /**
+     * Constructs an empty utility-list able to hold the given number of entries without growing.
+     *
+     * @param capacity the initial number of entries.
+     */
+    public UtilityList(int capacity) {
+        int initialCapacity = Math.max(capacity, 1);
+        this.tids = new int[initialCapacity];
+        this.utilities = new int[initialCapacity];
+        this.remainingUtilities = new int[initialCapacity];
+        this.ptus = new float[initialCapacity];
+        this.antus = new float[initialCapacity];
+    }
+
+    /**
+     * Appends an entry to the utility-list. Entries must be added in ascending transaction order.
+     *
+     * @param tid the transaction index.
+     * @param utility the utility of the itemset in the transaction.
+     * @param remainingUtility the remaining positive utility of the other items in the transaction.
+     * @param ptu the positive transaction utility.
+     * @param antu the absolute negative transaction utility.
+     */
+    public void add(int tid, int utility, int remainingUtility, float ptu, float antu) {
+        if (this.size == this.tids.length) this.ensureCapacity(this.size * 2);
+        this.tids[this.size] = tid;
+        this.utilities[this.size] = utility;
+        this.remainingUtilities[this.size] = remainingUtility;
+        this.ptus[this.size] = ptu;
+        this.antus[this.size] = antu;
+        this.size++;
+    }
+
+    /**
+     * Builds the utility-list of the itemset extended with a single item by joining this list
+     * with the utility-list of the item on their common transactions.
+     * The utility of the extension is the sum of both utilities, and the positive part of the item's
+     * utility is removed from the remaining positive utility.
+     *
+     * @param itemList the utility-list of the extension item.
+     * @return the utility-list of the extended itemset.
+     */
+    public UtilityList join(UtilityList itemList) {
+        return this.join(itemList, new UtilityList(Math.min(this.size, itemList.size)));
+    }
+
+    /**
+     * Joins this list with the utility-list of an extension item like join, but writes the entries into a reusable
+     * list instead of a new one, such as the join buffer of a search stack (see SearchStack.getJoinBuffer).
+     * The previous entries of the result are overwritten.
+     *
+     * @param itemList the utility-list of the extension item.
+     * @param result the list receiving the entries of the extended itemset.
+     * @return the result list.
+     */
+    public UtilityList join(UtilityList itemList, UtilityList result) {
+        result.clear(Math.min(this.size, itemList.size));
+        int i = 0;
+        int j = 0;
+        while (i < this.size && j < itemList.size) {
+            if (this.tids[i] < itemList.tids[j]) {
+                i++;
+            } else if (this.tids[i] > itemList.tids[j]) {
+                j++;
+            } else {
+                int itemUtility = itemList.utilities[j];
+                result.add(this.tids[i], this.utilities[i] + itemUtility,
+                        this.remainingUtilities[i] - Math.max(itemUtility, 0), this.ptus[i], this.antus[i]);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Joins this list with the utility-list of an extension item like join, but checks the period constraint
+     * while the common transactions are found, and gives up as soon as it is broken: when the first common
+     * transaction ID exceeds maxFirstId, or when the gap between two consecutive common transaction IDs
+     * exceeds maxGap. The transactions must be indexed in ascending ID order.
+     *
+     * @param itemList the utility-list of the extension item.
+     * @param ids the transaction ID of every transaction index.
+     * @param maxFirstId the largest allowed first transaction ID.
+     * @param maxGap the largest allowed gap between consecutive transaction IDs.
+     * @return the utility-list of the extended itemset, or null if the period constraint is broken.
+     */
+    public UtilityList join(UtilityList itemList, int[] ids, int maxFirstId, int maxGap) {
+        return this.join(itemList, ids, maxFirstId, maxGap, new UtilityList(Math.min(this.size, itemList.size)));
+    }
+
+    /**
+     * Joins this list with the utility-list of an extension item like the period-checking join, but writes the
+     * entries into a reusable list instead of a new one. The previous entries of the result are overwritten.
+     *
+     * @param itemList the utility-list of the extension item.
+     * @param ids the transaction ID of every transaction index.
+     * @param maxFirstId the largest allowed first transaction ID.
+     * @param maxGap the largest allowed gap between consecutive transaction IDs.
+     * @param result the list receiving the entries of the extended itemset.
+     * @return the result list, or null if the period constraint is broken.
+     */
+    public UtilityList join(UtilityList itemList, int[] ids, int maxFirstId, int maxGap, UtilityList result) {
+        result.clear(Math.min(this.size, itemList.size));
+        int previousId = -1;
+        int i = 0;
+        int j = 0;
+        while (i < this.size && j < itemList.size) {
+            if (this.tids[i] < itemList.tids[j]) {
+                i++;
+            } else if (this.tids[i] > itemList.tids[j]) {
+                j++;
+            } else {
+                int id = ids[this.tids[i]];
+                if (previousId < 0 ? id > maxFirstId : id - previousId > maxGap) return null;
+                previousId = id;
+
+                int itemUtility = itemList.utilities[j];
+                result.add(this.tids[i], this.utilities[i] + itemUtility,
+                        this.remainingUtilities[i] - Math.max(itemUtility, 0), this.ptus[i], this.antus[i]);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of the utility-list holding exactly its entries, to be kept after the list it was copied from
+     * is reused.
+     *
+     * @return the copy.
+     */
+    public UtilityList copy() {
+        UtilityList copy = new UtilityList(this.size);
+        System.arraycopy(this.tids, 0, copy.tids, 0, this.size);
+        System.arraycopy(this.utilities, 0, copy.utilities, 0, this.size);
+        System.arraycopy(this.remainingUtilities, 0, copy.remainingUtilities, 0, this.size);
+        System.arraycopy(this.ptus, 0, copy.ptus, 0, this.size);
+        System.arraycopy(this.antus, 0, copy.antus, 0, this.size);
+        copy.size = this.size;
+        return copy;
+    }
+
+    /**
+     * Removes every entry, making room for at least the given number of entries without growing.
+     */
+    private void clear(int capacity) {
+        this.size = 0;
+        if (this.tids.length < capacity) this.ensureCapacity(capacity);
+    }
+
+    /**
+     * Grows the arrays of entries to the given capacity, keeping the current entries.
+     */
+    private void ensureCapacity(int capacity) {
+        this.tids = Arrays.copyOf(this.tids, capacity);
+        this.utilities = Arrays.copyOf(this.utilities, capacity);
+        this.remainingUtilities = Arrays.copyOf(this.remainingUtilities, capacity);
+        this.ptus = Arrays.copyOf(this.ptus, capacity);
+        this.antus = Arrays.copyOf(this.antus, capacity);
+    }
+}
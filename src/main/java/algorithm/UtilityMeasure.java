@@ -0,0 +1,128 @@
+package algorithm;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The utility measure ranked by a top-K search of the MiningEngine:
+ * - EXPECTED_UTILITY ranks the itemsets by expected utility, as in STP-HUPI;
+ * - UTILITY ranks the itemsets by raw utility, as in STP-HUI.
+ * Besides the value of an itemset, a measure provides the upper bounds used by the projected-database search,
+ * since the positive utility bounding an expected utility is looser than the bound of the raw utility.
+ */
+public enum UtilityMeasure {
+    EXPECTED_UTILITY {
+        @Override
+        public double value(int utility, float expectedUtility) {
+            return expectedUtility;
+        }
+
+        @Override
+        public long localUtility(ProjectedTransaction transaction) {
+            return (long) transaction.getPrefixPositiveUtility()
+                    + transaction.getPositiveSuffixUtilities()[transaction.getOffset()];
+        }
+
+        @Override
+        public long subtreeUtility(ProjectedTransaction transaction, int position) {
+            return (long) transaction.getPrefixPositiveUtility() + transaction.getPositiveSuffixUtilities()[position];
+        }
+
+        @Override
+        public Itemset toItemset(List<Integer> items, int utility, float expectedUtility, int maxPeriod) {
+            return new Itemset(items, utility, expectedUtility, maxPeriod);
+        }
+    },
+    UTILITY {
+        @Override
+        public double value(int utility, float expectedUtility) {
+            return utility;
+        }
+
+        @Override
+        public long localUtility(ProjectedTransaction transaction) {
+            return Math.max((long) transaction.getPrefixUtility()
+                    + transaction.getPositiveSuffixUtilities()[transaction.getOffset()], 0);
+        }
+
+        @Override
+        public long subtreeUtility(ProjectedTransaction transaction, int position) {
+            return Math.max((long) transaction.getPrefixUtility() + transaction.getUtilities()[position]
+                    + transaction.getPositiveSuffixUtilities()[position + 1], 0);
+        }
+
+        @Override
+        public Itemset toItemset(List<Integer> items, int utility, float expectedUtility, int maxPeriod) {
+            // STP-HUI does not compute expected utilities; they are reported as 1.
+            return new Itemset(items, utility, 1f, maxPeriod);
+        }
+    };
+
+    /**
+     * Returns the value of an itemset under this measure.
+     *
+     * @param utility the raw utility of the itemset.
+     * @param expectedUtility the expected utility of the itemset.
+     * @return the value ranked by the top-K list.
+     */
+    public abstract double value(int utility, float expectedUtility);
+
+    /**
+     * Returns the value of an itemset under this measure.
+     *
+     * @param itemset the itemset.
+     * @return the value ranked by the top-K list.
+     */
+    public double value(Itemset itemset) {
+        return this.value(itemset.getUtility(), itemset.getExpectedUtility());
+    }
+
+    /**
+     * Returns the contribution of a projected transaction to the local utility bound of each of its remaining
+     * items, which bounds the value of every extension of the prefix containing the item.
+     *
+     * @param transaction the projected transaction.
+     * @return the local utility bound in this transaction.
+     */
+    public abstract long localUtility(ProjectedTransaction transaction);
+
+    /**
+     * Returns the contribution of a projected transaction to the sub-tree utility bound of one of its remaining
+     * items, which bounds the value of every itemset of the sub-tree of the prefix extended with the item.
+     *
+     * @param transaction the projected transaction.
+     * @param position the position of the item in the transaction.
+     * @return the sub-tree utility bound in this transaction.
+     */
+    public abstract long subtreeUtility(ProjectedTransaction transaction, int position);
+
+    /**
+     * Builds an itemset as reported in the top-K list of this measure.
+     *
+     * @param items the items of the itemset.
+     * @param utility the raw utility of the itemset.
+     * @param expectedUtility the expected utility of the itemset.
+     * @param maxPeriod the maximum period of the itemset.
+     * @return the new itemset.
+     */
+    public abstract Itemset toItemset(List<Integer> items, int utility, float expectedUtility, int maxPeriod);
+
+    /**
+     * Builds the itemset on top of a search stack, as reported in the top-K list of this measure.
+     *
+     * @param stack the search stack, holding the itemset and its measures.
+     * @return the new itemset.
+     */
+    public Itemset toItemset(SearchStack stack) {
+        return this.toItemset(stack.toItemList(), stack.getUtility(), stack.getExpectedUtility(), stack.getMaxPeriod());
+    }
+
+    /**
+     * Returns the order of the final top-K list: descending value under this measure.
+     *
+     * @return the comparator of the results.
+     */
+    public Comparator<Itemset> resultOrder() {
+        return Comparator.<Itemset>comparingDouble(this::value).reversed();
+    }
+}
@@ -0,0 +1,177 @@
+package algorithm;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.function.Consumer;
+
+/**
+ * Partitions timestamp-sorted transactions into short-time windows in a single pass.
+ * Weekly windows start at the first timestamp and end one week after the end of its day; hourly windows last
+ * one hour. Each window starts one second after the previous one ends. A transaction whose timestamp reaches the
+ * start of the next window opens it, so a window is only produced once a transaction has reached it.
+ * The boundaries of a window are computed once when it opens, and a window is handed to the consumer as soon as
+ * a later transaction closes it (or when the input ends), so only the open windows are kept in memory.
+ */
+public class WindowPartitioner {
+    private static final int SECONDS_IN_A_WEEK = 604800;
+    private static final int SECONDS_IN_AN_HOUR = 3600;
+
+    private final boolean oneHour;                       // Hourly windows instead of weekly ones.
+    private final int maxWindows;                        // Maximum number of windows to produce.
+    private final Consumer<List<Transaction>> consumer;  // Receives every closed window in order.
+    private final Deque<Transaction> buffer = new ArrayDeque<>(); // Transactions not yet handed to a window.
+    private int openedWindows;                           // Number of windows opened so far.
+    private int pendingWindows;                          // Opened windows that have not been closed yet.
+    private long nextStart;                              // Start of the next window to open.
+    private long closingStart;                           // Start of the earliest window that is still open.
+    private long closingEnd;                             // End of the earliest window that is still open.
+    private boolean started;
+    private final List<long[]> boundaries = new ArrayList<>(); // Start and end of every closed window.
+
+    /**
+     * Constructs a partitioner producing weekly or hourly windows.
+     *
+     * @param oneHour true for one-hour windows, false for weekly windows.
+     * @param maxWindows the maximum number of windows to produce.
+     * @param consumer the consumer receiving every closed window, in window order.
+     */
+    public WindowPartitioner(boolean oneHour, int maxWindows, Consumer<List<Transaction>> consumer) {
+        this.oneHour = oneHour;
+        this.maxWindows = maxWindows;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Adds the next transaction. Transactions must be added in ascending timestamp order.
+     * Every window that ends before the transaction is closed and handed to the consumer.
+     *
+     * @param transaction the next transaction.
+     */
+    public void add(Transaction transaction) {
+        long timestamp = transaction.getTimestamp();
+        if (!this.started) {
+            this.started = true;
+            this.nextStart = timestamp;
+            this.closingStart = timestamp;
+            this.closingEnd = this.windowEnd(timestamp);
+        }
+        while (this.pendingWindows > 0 && timestamp > this.closingEnd) {
+            this.closeWindow();
+        }
+        if (this.isFinished()) return;
+
+        this.buffer.add(transaction);
+        if (this.openedWindows < this.maxWindows && timestamp >= this.nextStart) {
+            this.openedWindows++;
+            this.pendingWindows++;
+            this.nextStart = this.windowEnd(this.nextStart) + 1;
+        }
+    }
+
+    /**
+     * Tells whether the partitioner has produced all of its windows, so the remaining input can be skipped.
+     *
+     * @return true if the maximum number of windows has been opened and closed.
+     */
+    public boolean isFinished() {
+        return this.openedWindows == this.maxWindows && this.pendingWindows == 0;
+    }
+
+    /**
+     * Closes the windows that are still open once the input ends.
+     */
+    public void finish() {
+        while (this.pendingWindows > 0) {
+            this.closeWindow();
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * Returns the boundaries of the windows closed so far.
+     *
+     * @return the start and end timestamps (in seconds, inclusive) of every closed window, in window order.
+     */
+    public List<long[]> getBoundaries() {
+        return this.boundaries;
+    }
+
+    /**
+     * Partitions a list of timestamp-sorted transactions.
+     *
+     * @param transactions the transactions in ascending timestamp order.
+     * @param oneHour true for one-hour windows, false for weekly windows.
+     * @param maxWindows the maximum number of windows to produce.
+     * @return the list of windows.
+     */
+    public static List<List<Transaction>> partition(List<Transaction> transactions, boolean oneHour, int maxWindows) {
+        List<List<Transaction>> windows = new ArrayList<>();
+        WindowPartitioner partitioner = new WindowPartitioner(oneHour, maxWindows, windows::add);
+        for (Transaction transaction : transactions) {
+            partitioner.add(transaction);
+        }
+        partitioner.finish();
+        return windows;
+    }
+
+    /**
+     * Hands the earliest open window to the consumer and moves to the next one.
+     */
+    private void closeWindow() {
+        List<Transaction> window = new ArrayList<>();
+        while (!this.buffer.isEmpty() && this.buffer.peek().getTimestamp() <= this.closingEnd) {
+            window.add(this.buffer.poll());
+        }
+        System.err.println("Extracted " + window.size() + " transactions from "
+                + getLocalDateTime(this.closingStart) + " to " + getLocalDateTime(this.closingEnd));
+        this.boundaries.add(new long[]{this.closingStart, this.closingEnd});
+        this.consumer.accept(window);
+
+        this.pendingWindows--;
+        this.closingStart = this.closingEnd + 1;
+        this.closingEnd = this.windowEnd(this.closingStart);
+    }
+
+    /**
+     * Returns the end of the window starting at the given timestamp.
+     *
+     * @param start the start of the window (in seconds).
+     * @return the end of the window (in seconds, inclusive).
+     */
+    private long windowEnd(long start) {
+        return this.oneHour ? start + SECONDS_IN_AN_HOUR : alignToEndOfDay(start) + SECONDS_IN_A_WEEK;
+    }
+
+    /**
+     * Aligns the given timestamp to the end of its day (23:59:59).
+     *
+     * @param timestamp the input timestamp (in seconds).
+     * @return the timestamp corresponding to 23:59:59 of the same day.
+     */
+    private static long alignToEndOfDay(long timestamp) {
+        Instant instant = Instant.ofEpochSecond(timestamp);
+        LocalDateTime localDateTime = LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+        LocalDateTime endOfDay = localDateTime.toLocalDate().atTime(23, 59, 59);
+        return endOfDay.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    /**
+     * Converts a timestamp to a formatted local date and time string.
+     *
+     * @param timestamp the input timestamp (in seconds).
+     * @return a formatted date/time string (e.g., "HH:mm:ss dd/MM/yyyy").
+     */
+    private static String getLocalDateTime(long timestamp) {
+        Instant instant = Instant.ofEpochSecond(timestamp);
+        LocalDateTime dateTime = LocalDateTime.ofInstant(instant, TimeZone.getDefault().toZoneId());
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss dd/MM/yyyy");
+        return dateTime.format(formatter);
+    }
+}
@@ -0,0 +1,134 @@
+package algorithm;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the round trip of short-time sub-datasets through the binary format of BinaryDataset, and the rejection
+ * of truncated, corrupted and foreign files with an IOException.
+ */
+public class BinaryDatasetTest {
+    private static final int HEADER_SIZE = 6 * Integer.BYTES;
+
+    private File file;
+    private TimeZone defaultTimeZone;
+    private final List<List<Transaction>> windows = Arrays.asList(
+            Arrays.asList(
+                    new Transaction(1, Arrays.asList(1, 2, 3), Arrays.asList(10, 20, -5), 25, 1000L),
+                    new Transaction(2, Collections.singletonList(4), Collections.singletonList(7), 7, 1500L)),
+            Collections.emptyList(),
+            Collections.singletonList(
+                    new Transaction(5, Arrays.asList(2, 4), Arrays.asList(3, 4), 7, 9000L)));
+
+    @Before
+    public void setUp() throws IOException {
+        this.file = Files.createTempFile("dataset", BinaryDataset.EXTENSION).toFile();
+        this.defaultTimeZone = TimeZone.getDefault();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TimeZone.setDefault(this.defaultTimeZone);
+        Files.deleteIfExists(this.file.toPath());
+    }
+
+    private void write() throws IOException {
+        BinaryDataset.write(this.windows, new long[]{1000, 5000, 9000}, new long[]{4999, 8999, 12999}, this.file);
+    }
+
+    @Test
+    public void readsTheWrittenWindows() throws IOException {
+        this.write();
+
+        List<List<Transaction>> read = BinaryDataset.read(this.file);
+        assertEquals(this.windows.size(), read.size());
+        for (int w = 0; w < this.windows.size(); w++) {
+            assertEquals(this.windows.get(w).size(), read.get(w).size());
+            for (int t = 0; t < this.windows.get(w).size(); t++) {
+                Transaction expected = this.windows.get(w).get(t);
+                Transaction actual = read.get(w).get(t);
+                assertEquals(expected.getId(), actual.getId());
+                assertEquals(expected.getItems(), actual.getItems());
+                assertEquals(expected.getUtilities(), actual.getUtilities());
+                assertEquals(expected.getTransactionUtility(), actual.getTransactionUtility());
+                assertEquals(expected.getTimestamp(), actual.getTimestamp());
+            }
+        }
+    }
+
+    @Test
+    public void rejectsATruncatedFile() throws IOException {
+        this.write();
+        try (RandomAccessFile raf = new RandomAccessFile(this.file, "rw")) {
+            raf.setLength(raf.length() - Integer.BYTES);
+        }
+        this.assertRejected();
+    }
+
+    @Test
+    public void rejectsAnotherFile() throws IOException {
+        Files.write(this.file.toPath(), "1 2:30:10 20:1000\n".getBytes(StandardCharsets.US_ASCII));
+        this.assertRejected();
+    }
+
+    @Test
+    public void rejectsCorruptedWindowOffsets() throws IOException {
+        this.write();
+        this.overwriteInt(this.windowOffsetsPosition() + Integer.BYTES, 1000); // First transaction of window 2.
+        this.assertRejected();
+    }
+
+    @Test
+    public void rejectsCorruptedEntryOffsets() throws IOException {
+        this.write();
+        int transactionCount = 3;
+        long position = this.windowOffsetsPosition() + Integer.BYTES * (this.windows.size() + 1)
+                + (2L * Integer.BYTES + Long.BYTES) * transactionCount;
+        this.overwriteInt(position + Integer.BYTES, -5); // First entry of transaction 2.
+        this.assertRejected();
+    }
+
+    @Test
+    public void rejectsAFileWrittenInAnotherTimeZone() throws IOException {
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+        this.write();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        this.assertRejected();
+    }
+
+    private long windowOffsetsPosition() {
+        int zoneLength = ZoneId.systemDefault().getId().getBytes(StandardCharsets.UTF_8).length;
+        return HEADER_SIZE + zoneLength + 2L * Long.BYTES * this.windows.size();
+    }
+
+    private void overwriteInt(long position, int value) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(this.file, "rw")) {
+            raf.seek(position);
+            raf.writeInt(value);
+        }
+    }
+
+    private void assertRejected() {
+        try {
+            BinaryDataset.read(this.file);
+            fail("The file should be rejected");
+        } catch (IOException expected) {
+            // Reported as an IOException, so that DatasetReader ignores and rebuilds the cache.
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package algorithm;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the open-addressing LongHashSet, in particular the backward-shift deletion: removing a value from the middle
+ * of a probe sequence must keep the following values of the sequence reachable.
+ */
+public class LongHashSetTest {
+
+    @Test
+    public void addsAndRemovesValues() {
+        LongHashSet set = new LongHashSet(4);
+
+        assertTrue(set.add(7));
+        assertFalse(set.add(7));
+        assertTrue(set.add(-3));
+        assertTrue(set.contains(7));
+        assertTrue(set.contains(-3));
+        assertFalse(set.contains(8));
+        assertEquals(2, set.size());
+
+        assertTrue(set.remove(7));
+        assertFalse(set.remove(7));
+        assertFalse(set.contains(7));
+        assertTrue(set.contains(-3));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void tracksZeroOutsideTheTable() {
+        LongHashSet set = new LongHashSet(4);
+
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.contains(0));
+        assertEquals(1, set.size());
+        assertTrue(set.remove(0));
+        assertFalse(set.contains(0));
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    public void keepsTheOtherValuesOfAProbeSequenceAfterARemoval() {
+        // 8 values in the 16 slots of the smallest table form long probe sequences.
+        LongHashSet set = new LongHashSet(1);
+        for (long value = 1; value <= 8; value++) {
+            set.add(value);
+        }
+        for (long removed = 1; removed <= 8; removed++) {
+            assertTrue(set.remove(removed));
+            for (long value = 1; value <= 8; value++) {
+                assertEquals("value " + value + " after removing 1.." + removed, value > removed, set.contains(value));
+            }
+        }
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    public void matchesAHashSetUnderRandomAddsAndRemovals() {
+        Random random = new Random(42);
+        LongHashSet set = new LongHashSet(1);
+        Set<Long> expected = new HashSet<>();
+        for (int operation = 0; operation < 200_000; operation++) {
+            long value = random.nextInt(64) - 8; // A small range, so that values collide and are removed often.
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+            if (operation % 1000 == 0) {
+                for (long other = -8; other < 56; other++) {
+                    assertEquals(expected.contains(other), set.contains(other));
+                }
+            }
+        }
+        assertEquals(expected.size(), set.size());
+    }
+}
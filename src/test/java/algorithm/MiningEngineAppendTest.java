@@ -0,0 +1,206 @@
+package algorithm;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that appending transactions one by one to a MiningEngine (see MiningEngine.append) gives the top-K itemsets
+ * of a new projected run over all the transactions, up to ties at the K-th value, whether the structures are
+ * extended in place or rebuilt.
+ */
+public class MiningEngineAppendTest {
+    private static final UtilityMeasure[] MEASURES = {UtilityMeasure.EXPECTED_UTILITY, UtilityMeasure.UTILITY};
+
+    @Test
+    public void matchesANewRunWithPositiveAndNegativeUtilities() {
+        for (long seed = 0; seed < 30; seed++) {
+            Random random = new Random(seed);
+            List<Transaction> transactions = randomTransactions(random, 40, 7);
+            MiningEngine engine = projectedEngine(transactions.subList(0, 20), 5, 6, 0f);
+            engine.currentTopK(UtilityMeasure.UTILITY);
+            for (int i = 20; i < transactions.size(); i++) {
+                engine.append(transactions.get(i));
+                assertSameTopK("seed " + seed + ", transaction " + i, engine, transactions.subList(0, i + 1), 5, 6, 0f);
+            }
+        }
+    }
+
+    @Test
+    public void matchesANewRunWhenTheTransactionChangesTheTWUFilter() {
+        // Item 4 only occurs once, far below the TWU filter at 20% of the total utility, until it is appended again.
+        List<Transaction> transactions = new ArrayList<>(Arrays.asList(
+                transaction(1, new int[]{1, 2}, new int[]{8, 6}),
+                transaction(2, new int[]{1, 3}, new int[]{5, -2}),
+                transaction(3, new int[]{2, 3}, new int[]{7, 4}),
+                transaction(4, new int[]{4}, new int[]{1}),
+                transaction(5, new int[]{1, 2, 3}, new int[]{3, 3, 3})));
+        MiningEngine engine = projectedEngine(transactions, 3, 10, 0.2f);
+        engine.currentTopK(UtilityMeasure.UTILITY);
+        assertFalse(engine.getItemCodes().containsKey(4));
+
+        Transaction appended = transaction(6, new int[]{2, 4}, new int[]{2, 30});
+        transactions.add(appended);
+        engine.append(appended);
+        assertTrue(engine.getItemCodes().containsKey(4));
+        assertSameTopK("filter change", engine, transactions, 3, 10, 0.2f);
+    }
+
+    @Test
+    public void matchesANewRunAfterAnOutOfOrderTransaction() {
+        for (long seed = 0; seed < 10; seed++) {
+            Random random = new Random(seed);
+            List<Transaction> transactions = randomTransactions(random, 20, 7);
+            MiningEngine engine = projectedEngine(transactions, 5, 6, 0f);
+            engine.currentTopK(UtilityMeasure.UTILITY);
+            TransactionDatabase database = engine.getDatabase();
+
+            // The ID precedes those of all the transactions, so the structures are rebuilt in ID order.
+            Transaction appended = transaction(0, new int[]{1, 2}, new int[]{9, 4});
+            List<Transaction> all = new ArrayList<>(transactions);
+            all.add(appended);
+            engine.append(appended);
+            assertNotSame(database, engine.getDatabase());
+            assertSameTopK("seed " + seed, engine, all, 5, 6, 0f);
+        }
+    }
+
+    @Test
+    public void matchesANewRunWhenTheAppendFallsBack() {
+        for (long seed = 0; seed < 10; seed++) {
+            Random random = new Random(seed);
+            List<Transaction> transactions = randomTransactions(random, 20, 7);
+            MiningEngine engine = projectedEngine(transactions, 5, 6, 0f);
+            engine.currentTopK(UtilityMeasure.UTILITY);
+
+            // A transaction of positive utility following the others is appended in place.
+            Transaction extended = transaction(lastId(transactions) + 1, new int[]{1, 2}, new int[]{3, 2});
+            transactions.add(extended);
+            TransactionDatabase database = engine.getDatabase();
+            engine.append(extended);
+            assertSame(database, engine.getDatabase());
+            assertSameTopK("seed " + seed + ", in place", engine, transactions, 5, 6, 0f);
+
+            // A negative transaction utility lowers the initial minUtil: the structures are rebuilt and searched again.
+            Transaction negative = transaction(lastId(transactions) + 1, new int[]{1, 3}, new int[]{-6, -1});
+            transactions.add(negative);
+            engine.append(negative);
+            assertNotSame(database, engine.getDatabase());
+            assertSameTopK("seed " + seed + ", fallback", engine, transactions, 5, 6, 0f);
+        }
+    }
+
+    @Test
+    public void keepsTheItemStatisticsOfTheCaller() {
+        List<Transaction> transactions = randomTransactions(new Random(7), 20, 7);
+        ItemStatistics statistics = ItemStatistics.of(new TransactionDatabase(transactions));
+        MiningEngine engine = projectedEngine(transactions, 5, 6, 0f);
+        engine.setItemStatistics(statistics);
+        engine.currentTopK(UtilityMeasure.UTILITY);
+
+        List<Transaction> all = new ArrayList<>(transactions);
+        all.add(transaction(lastId(transactions) + 1, new int[]{1, 2}, new int[]{3, 2}));
+        engine.append(all.get(all.size() - 1));
+        assertEquals(ItemStatistics.of(new TransactionDatabase(transactions)).getTwu(), statistics.getTwu());
+        assertSameTopK("appended", engine, all, 5, 6, 0f);
+    }
+
+    @Test
+    public void treeGrowthMatchesANewTreeGrowth() {
+        for (long seed = 0; seed < 20; seed++) {
+            Random random = new Random(seed);
+            List<Transaction> transactions = randomTransactions(random, 40, 7);
+            MiningEngine engine = new MiningEngine(transactions.subList(0, 20), 5, 6, 0f, MEASURES);
+            engine.currentTopK(UtilityMeasure.UTILITY);
+            for (int i = 20; i < transactions.size(); i++) {
+                engine.append(transactions.get(i));
+                MiningEngine fresh = new MiningEngine(transactions.subList(0, i + 1), 5, 6, 0f, MEASURES);
+                fresh.mineTopK();
+                for (UtilityMeasure measure : MEASURES) {
+                    assertEquals("seed " + seed + ", transaction " + i + ", " + measure,
+                            values(fresh.getResults(measure), measure), values(engine.currentTopK(measure), measure));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns transactions of increasing IDs, with a few random gaps, over the given number of items. Every utility
+     * may be negative, but the transactions keep a positive utility.
+     */
+    private static List<Transaction> randomTransactions(Random random, int count, int items) {
+        List<Transaction> transactions = new ArrayList<>();
+        int id = 0;
+        for (int t = 0; t < count; t++) {
+            id += 1 + random.nextInt(3);
+            List<Integer> shuffled = new ArrayList<>();
+            for (int item = 1; item <= items; item++) {
+                shuffled.add(item);
+            }
+            Collections.shuffle(shuffled, random);
+            int length = 1 + random.nextInt(4);
+            int[] transactionItems = new int[length];
+            int[] utilities = new int[length];
+            for (int i = 0; i < length; i++) {
+                transactionItems[i] = shuffled.get(i);
+                utilities[i] = i > 0 && random.nextInt(4) == 0 ? -1 - random.nextInt(3) : 1 + random.nextInt(9);
+            }
+            transactions.add(transaction(id, transactionItems, utilities));
+        }
+        return transactions;
+    }
+
+    private static Transaction transaction(int id, int[] items, int[] utilities) {
+        List<Integer> itemList = new ArrayList<>();
+        List<Integer> utilityList = new ArrayList<>();
+        int transactionUtility = 0;
+        for (int i = 0; i < items.length; i++) {
+            itemList.add(items[i]);
+            utilityList.add(utilities[i]);
+            transactionUtility += utilities[i];
+        }
+        return new Transaction(id, itemList, utilityList, transactionUtility, 1_600_000_000L + id);
+    }
+
+    private static int lastId(List<Transaction> transactions) {
+        return transactions.get(transactions.size() - 1).getId();
+    }
+
+    private static MiningEngine projectedEngine(List<Transaction> transactions, int k, int maxPer, float threshold) {
+        MiningEngine engine = new MiningEngine(transactions, k, maxPer, threshold, MEASURES);
+        engine.setProjectedMode(true);
+        return engine;
+    }
+
+    /**
+     * Checks that the current top-K values of every measure are those of a new projected run over the transactions.
+     */
+    private static void assertSameTopK(String message, MiningEngine engine, List<Transaction> transactions, int k,
+                                       int maxPer, float threshold) {
+        MiningEngine fresh = projectedEngine(transactions, k, maxPer, threshold);
+        fresh.mineTopK();
+        for (UtilityMeasure measure : MEASURES) {
+            assertEquals(message + ", " + measure, values(fresh.getResults(measure), measure),
+                    values(engine.currentTopK(measure), measure));
+        }
+    }
+
+    private static List<Double> values(List<Itemset> itemsets, UtilityMeasure measure) {
+        List<Double> values = new ArrayList<>();
+        for (Itemset itemset : itemsets) {
+            values.add(measure.value(itemset));
+        }
+        Collections.sort(values);
+        return values;
+    }
+}
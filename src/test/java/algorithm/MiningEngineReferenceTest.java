@@ -0,0 +1,421 @@
+package algorithm;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the exhaustive projected-database search of the MiningEngine against a brute-force reference, which
+ * enumerates all the itemsets of small random windows with negative utilities and evaluates them one by one.
+ * The top-K values of every measure must be those of the reference (itemsets tied with the K-th value may differ).
+ * The heuristic tree growth must only report itemsets of the reference, with their exact values and period.
+ */
+public class MiningEngineReferenceTest {
+    private static final UtilityMeasure[] MEASURES = {UtilityMeasure.EXPECTED_UTILITY, UtilityMeasure.UTILITY};
+    private static final int[] KS = {1, 3, 8};
+    private static final int[] MAX_PERS = {2, 4, 100};
+
+    @Test
+    public void projectedSearchMatchesTheReference() {
+        for (long seed = 0; seed < 40; seed++) {
+            List<Transaction> transactions = randomTransactions(new Random(seed), 25, 6);
+            for (int k : KS) {
+                for (int maxPer : MAX_PERS) {
+                    for (float threshold : new float[]{0f, 0.05f}) {
+                        MiningEngine engine = projectedEngine(transactions, k, maxPer, threshold, MEASURES);
+                        engine.mineTopK();
+                        assertMatchesReference("seed " + seed + ", k " + k + ", maxPer " + maxPer + ", threshold "
+                                + threshold, engine, transactions, k, maxPer, threshold, MEASURES);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void parallelSearchMatchesTheReference() {
+        for (long seed = 0; seed < 40; seed++) {
+            List<Transaction> transactions = randomTransactions(new Random(seed), 25, 6);
+            for (int k : KS) {
+                for (int parallelDepth = 1; parallelDepth <= 3; parallelDepth++) {
+                    MiningEngine engine = projectedEngine(transactions, k, 4, 0f, MEASURES);
+                    engine.setParallelism(4);
+                    engine.setParallelDepth(parallelDepth);
+                    engine.mineTopK();
+                    assertMatchesReference("seed " + seed + ", k " + k + ", depth " + parallelDepth, engine,
+                            transactions, k, 4, 0f, MEASURES);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void singleMeasureSearchMatchesTheJointSearch() {
+        // A joint search only prunes what no measure needs, so each measure gets the results of its own search.
+        for (long seed = 0; seed < 40; seed++) {
+            List<Transaction> transactions = randomTransactions(new Random(seed), 25, 6);
+            for (int k : KS) {
+                MiningEngine joint = projectedEngine(transactions, k, 4, 0f, MEASURES);
+                joint.mineTopK();
+                for (UtilityMeasure measure : MEASURES) {
+                    MiningEngine single = projectedEngine(transactions, k, 4, 0f, measure);
+                    single.mineTopK();
+                    String message = "seed " + seed + ", k " + k + ", " + measure;
+                    assertMatchesReference(message, single, transactions, k, 4, 0f, measure);
+                    assertValues(message, values(joint.getResults(measure), measure),
+                            values(single.getResults(measure), measure));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sweepMatchesOneEnginePerParameterPair() {
+        for (long seed = 0; seed < 40; seed++) {
+            List<Transaction> transactions = randomTransactions(new Random(seed), 25, 6);
+            MiningEngine sweep = MiningEngine.sweep(transactions, KS, MAX_PERS, 0f, MEASURES);
+            for (int k : KS) {
+                for (int maxPer : MAX_PERS) {
+                    MiningEngine engine = projectedEngine(transactions, k, maxPer, 0f, MEASURES);
+                    engine.mineTopK();
+                    Map<UtilityMeasure, List<Itemset>> reference = referenceItemsets(transactions, maxPer, 0f);
+                    for (UtilityMeasure measure : MEASURES) {
+                        String message = "seed " + seed + ", k " + k + ", maxPer " + maxPer + ", " + measure;
+                        List<Double> sweepValues = values(sweep.getResults(measure, k, maxPer), measure);
+                        assertValues(message, referenceValues(reference, measure, k), sweepValues);
+                        assertValues(message, values(engine.getResults(measure), measure), sweepValues);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void seededSearchMatchesTheUnseededSearch() {
+        for (long seed = 0; seed < 40; seed++) {
+            Random random = new Random(seed);
+            List<Transaction> previous = randomTransactions(random, 25, 6);
+            List<Transaction> transactions = randomTransactions(random, 25, 6);
+            for (int k : KS) {
+                // The top-K itemsets of the previous window, and random itemsets, some with items of no transaction.
+                MiningEngine previousEngine = projectedEngine(previous, k, 4, 0f, MEASURES);
+                previousEngine.mineTopK();
+                List<List<Integer>> seeds = new ArrayList<>();
+                for (UtilityMeasure measure : MEASURES) {
+                    previousEngine.getResults(measure).forEach(itemset -> seeds.add(itemset.getItems()));
+                }
+                for (int i = 0; i < 5; i++) {
+                    seeds.add(new ArrayList<>(new TreeSet<>(List.of(1 + random.nextInt(8), 1 + random.nextInt(8)))));
+                }
+
+                MiningEngine unseeded = projectedEngine(transactions, k, 4, 0f, MEASURES);
+                unseeded.mineTopK();
+                MiningEngine seeded = projectedEngine(transactions, k, 4, 0f, MEASURES);
+                seeded.setSeedItemsets(seeds);
+                seeded.mineTopK();
+                String message = "seed " + seed + ", k " + k;
+                assertMatchesReference(message, seeded, transactions, k, 4, 0f, MEASURES);
+                for (UtilityMeasure measure : MEASURES) {
+                    assertValues(message + ", " + measure, values(unseeded.getResults(measure), measure),
+                            values(seeded.getResults(measure), measure));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void preMiningRaisingKeepsTheThresholdsAtMostTheKthValue() {
+        // More items than the 2K pair candidates, so that the best pairs are not always among them.
+        for (long seed = 0; seed < 40; seed++) {
+            List<Transaction> transactions = randomTransactions(new Random(seed), 30, 10);
+            for (int k : KS) {
+                for (int maxPer : MAX_PERS) {
+                    MiningEngine engine = projectedEngine(transactions, k, maxPer, 0f, MEASURES);
+                    engine.mineTopK();
+                    String message = "seed " + seed + ", k " + k + ", maxPer " + maxPer;
+                    assertMatchesReference(message, engine, transactions, k, maxPer, 0f, MEASURES);
+
+                    Map<UtilityMeasure, List<Itemset>> reference = referenceItemsets(transactions, maxPer, 0f);
+                    for (UtilityMeasure measure : MEASURES) {
+                        List<Double> topK = referenceValues(reference, measure, k);
+                        if (topK.size() < k) continue;
+                        assertTrue(message + ", " + measure + ": minUtil " + engine.getMinUtil(measure)
+                                + " above " + topK.get(0), engine.getMinUtil(measure) <= topK.get(0) + 1e-4);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void kOfZeroGivesEmptyLists() {
+        List<Transaction> transactions = randomTransactions(new Random(0), 25, 6);
+        for (boolean projectedMode : new boolean[]{false, true}) {
+            MiningEngine engine = new MiningEngine(transactions, 0, 100, 0f, MEASURES);
+            engine.setProjectedMode(projectedMode);
+            engine.mineTopK();
+            for (UtilityMeasure measure : MEASURES) {
+                assertEquals(0, engine.getResults(measure).size());
+            }
+        }
+    }
+
+    @Test
+    public void treeGrowthOnlyReportsExactItemsetsWithinMaxPer() {
+        // The tree growth is heuristic: its itemsets need not be the top-K, but they must be evaluated exactly.
+        for (long seed = 0; seed < 40; seed++) {
+            List<Transaction> transactions = randomTransactions(new Random(seed), 25, 6);
+            for (int maxPer : MAX_PERS) {
+                MiningEngine engine = new MiningEngine(transactions, 8, maxPer, 0f, MEASURES);
+                engine.mineTopK();
+                Map<UtilityMeasure, List<Itemset>> reference = referenceItemsets(transactions, maxPer, 0f);
+                for (UtilityMeasure measure : MEASURES) {
+                    for (Itemset itemset : engine.getResults(measure)) {
+                        String message = "seed " + seed + ", maxPer " + maxPer + ", " + itemset;
+                        TreeSet<Integer> items = new TreeSet<>(itemset.getItems());
+                        Itemset expected = reference.get(measure).stream()
+                                .filter(other -> new TreeSet<>(other.getItems()).equals(items))
+                                .map(other -> measure.toItemset(other.getItems(), other.getUtility(),
+                                        other.getExpectedUtility(), other.getMaxPer()))
+                                .findFirst()
+                                .orElseThrow(() -> new AssertionError(message + " is not in the reference"));
+                        assertEquals(message, expected.getUtility(), itemset.getUtility());
+                        assertEquals(message, expected.getExpectedUtility(), itemset.getExpectedUtility(), 1e-4);
+                        assertEquals(message, expected.getMaxPer(), itemset.getMaxPer());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void boundedJoinGivesUpExactlyWhenThePeriodIsBroken() {
+        Random random = new Random(42);
+        for (int run = 0; run < 2000; run++) {
+            int[] ids = new int[30];
+            for (int tid = 0; tid < ids.length; tid++) {
+                ids[tid] = (tid > 0 ? ids[tid - 1] : 0) + 1 + random.nextInt(3);
+            }
+            UtilityList prefix = randomUtilityList(random, ids.length);
+            UtilityList item = randomUtilityList(random, ids.length);
+            int maxFirstId = 1 + random.nextInt(8);
+            int maxGap = 1 + random.nextInt(8);
+
+            UtilityList joined = prefix.join(item);
+            boolean broken = joined.getSize() > 0 && ids[joined.getTids()[0]] > maxFirstId;
+            for (int i = 1; i < joined.getSize(); i++) {
+                broken |= ids[joined.getTids()[i]] - ids[joined.getTids()[i - 1]] > maxGap;
+            }
+            UtilityList bounded = prefix.join(item, ids, maxFirstId, maxGap);
+            if (broken) {
+                assertNull("run " + run, bounded);
+                continue;
+            }
+            assertEquals("run " + run, joined.getSize(), bounded.getSize());
+            for (int i = 0; i < joined.getSize(); i++) {
+                assertEquals("run " + run, joined.getTids()[i], bounded.getTids()[i]);
+                assertEquals("run " + run, joined.getUtilities()[i], bounded.getUtilities()[i]);
+                assertEquals("run " + run, joined.getRemainingUtilities()[i], bounded.getRemainingUtilities()[i]);
+            }
+        }
+    }
+
+    @Test
+    public void joinIntoAReusedBufferMatchesAJoinIntoANewList() {
+        Random random = new Random(43);
+        UtilityList buffer = new UtilityList(1);
+        for (int run = 0; run < 2000; run++) {
+            int[] ids = new int[5 + random.nextInt(40)];
+            for (int tid = 0; tid < ids.length; tid++) {
+                ids[tid] = tid + 1;
+            }
+            UtilityList prefix = randomUtilityList(random, ids.length);
+            UtilityList item = randomUtilityList(random, ids.length);
+            boolean bounded = random.nextBoolean();
+
+            UtilityList expected = bounded ? prefix.join(item, ids, ids.length, 2) : prefix.join(item);
+            UtilityList joined = bounded ? prefix.join(item, ids, ids.length, 2, buffer) : prefix.join(item, buffer);
+            if (expected == null) {
+                assertNull("run " + run, joined);
+                continue;
+            }
+            assertSame("run " + run, buffer, joined);
+            UtilityList copy = joined.copy();
+            assertEquals("run " + run, expected.getSize(), copy.getSize());
+            for (int i = 0; i < expected.getSize(); i++) {
+                assertEquals("run " + run, expected.getTids()[i], copy.getTids()[i]);
+                assertEquals("run " + run, expected.getUtilities()[i], copy.getUtilities()[i]);
+                assertEquals("run " + run, expected.getRemainingUtilities()[i], copy.getRemainingUtilities()[i]);
+            }
+        }
+    }
+
+    // --------------------------- REFERENCE ---------------------------
+
+    private static UtilityList randomUtilityList(Random random, int transactions) {
+        UtilityList utilityList = new UtilityList(transactions);
+        for (int tid = 0; tid < transactions; tid++) {
+            if (random.nextInt(3) > 0) utilityList.add(tid, random.nextInt(11) - 3, random.nextInt(10), 20, 5);
+        }
+        return utilityList;
+    }
+
+    /**
+     * Returns transactions of increasing IDs, separated by random gaps, over the given number of items. The first
+     * item of a transaction has a positive utility, any other item may have a negative one.
+     */
+    static List<Transaction> randomTransactions(Random random, int count, int items) {
+        List<Transaction> transactions = new ArrayList<>();
+        int id = 0;
+        for (int t = 0; t < count; t++) {
+            id += 1 + random.nextInt(3);
+            List<Integer> shuffled = new ArrayList<>();
+            for (int item = 1; item <= items; item++) {
+                shuffled.add(item);
+            }
+            Collections.shuffle(shuffled, random);
+            List<Integer> transactionItems = new ArrayList<>();
+            List<Integer> utilities = new ArrayList<>();
+            int transactionUtility = 0;
+            for (int i = 0; i < 1 + random.nextInt(4); i++) {
+                int utility = i > 0 && random.nextInt(4) == 0 ? -1 - random.nextInt(4) : 1 + random.nextInt(9);
+                transactionItems.add(shuffled.get(i));
+                utilities.add(utility);
+                transactionUtility += utility;
+            }
+            transactions.add(new Transaction(id, transactionItems, utilities, transactionUtility,
+                    1_600_000_000L + 60L * id));
+        }
+        return transactions;
+    }
+
+    static MiningEngine projectedEngine(List<Transaction> transactions, int k, int maxPer, float threshold,
+                                        UtilityMeasure... measures) {
+        MiningEngine engine = new MiningEngine(transactions, k, maxPer, threshold, measures);
+        engine.setProjectedMode(true);
+        return engine;
+    }
+
+    /**
+     * Evaluates every itemset of the items kept by the TWU filter, like the search: the utility and expected
+     * utility are summed over the transactions containing the itemset, whose PTU and ANTU only count kept items,
+     * and the period is the largest of the first transaction ID and of the gaps between consecutive IDs.
+     *
+     * @return the itemsets occurring at least twice, with a non-negative utility, a period of at most maxPer and
+     * a value of at least the initial minUtil, by measure.
+     */
+    static Map<UtilityMeasure, List<Itemset>> referenceItemsets(List<Transaction> transactions, int maxPer,
+                                                               float threshold) {
+        List<Transaction> sorted = new ArrayList<>(transactions);
+        sorted.sort(Comparator.comparingInt(Transaction::getId));
+        int dbUtil = 0;
+        Map<Integer, Long> twu = new HashMap<>();
+        for (Transaction transaction : sorted) {
+            dbUtil += transaction.getTransactionUtility();
+            long transactionTWU = transaction.getTransactionUtility();
+            for (int utility : transaction.getUtilities()) {
+                transactionTWU += Math.min(utility, 0);
+            }
+            for (int item : transaction.getItems()) {
+                twu.merge(item, transactionTWU, Long::sum);
+            }
+        }
+        float minUtil = dbUtil * threshold;
+        List<Integer> items = new ArrayList<>(new TreeSet<>(twu.keySet()));
+        items.removeIf(item -> twu.get(item) < minUtil);
+
+        Map<UtilityMeasure, List<Itemset>> itemsets = new HashMap<>();
+        for (UtilityMeasure measure : UtilityMeasure.values()) {
+            itemsets.put(measure, new ArrayList<>());
+        }
+        for (int mask = 1; mask < 1 << items.size(); mask++) {
+            List<Integer> itemset = new ArrayList<>();
+            for (int i = 0; i < items.size(); i++) {
+                if ((mask & 1 << i) != 0) itemset.add(items.get(i));
+            }
+            int utility = 0;
+            double expectedUtility = 0;
+            int maxPeriod = 0;
+            int previousId = 0;
+            int support = 0;
+            for (Transaction transaction : sorted) {
+                if (!transaction.getItems().containsAll(itemset)) continue;
+                int itemsetUtility = 0;
+                int ptu = 0;
+                int antu = 0;
+                for (int i = 0; i < transaction.getItems().size(); i++) {
+                    int value = transaction.getUtilities().get(i);
+                    if (!items.contains(transaction.getItems().get(i))) continue;
+                    if (itemset.contains(transaction.getItems().get(i))) itemsetUtility += value;
+                    ptu += Math.max(value, 0);
+                    antu -= Math.min(value, 0);
+                }
+                float probability = 0f;
+                if (itemsetUtility > 0 && ptu > 0) {
+                    probability = itemsetUtility / (float) ptu;
+                } else if (itemsetUtility < 0 && antu > 0) {
+                    probability = -itemsetUtility / (float) antu;
+                }
+                utility += itemsetUtility;
+                expectedUtility += itemsetUtility * probability;
+                maxPeriod = Math.max(maxPeriod, transaction.getId() - previousId);
+                previousId = transaction.getId();
+                support++;
+            }
+            if (support < 2 || utility < 0 || maxPeriod > maxPer) continue;
+            Itemset result = new Itemset(itemset, utility, (float) expectedUtility, maxPeriod);
+            for (UtilityMeasure measure : UtilityMeasure.values()) {
+                if ((float) measure.value(result) >= minUtil) itemsets.get(measure).add(result);
+            }
+        }
+        return itemsets;
+    }
+
+    /**
+     * Returns the K highest values of a measure among the reference itemsets, in ascending order.
+     */
+    static List<Double> referenceValues(Map<UtilityMeasure, List<Itemset>> itemsets, UtilityMeasure measure, int k) {
+        List<Double> values = values(itemsets.get(measure), measure);
+        return new ArrayList<>(values.subList(Math.max(0, values.size() - k), values.size()));
+    }
+
+    static List<Double> values(List<Itemset> itemsets, UtilityMeasure measure) {
+        List<Double> values = new ArrayList<>();
+        for (Itemset itemset : itemsets) {
+            values.add(measure.value(itemset));
+        }
+        Collections.sort(values);
+        return values;
+    }
+
+    static void assertValues(String message, List<Double> expected, List<Double> actual) {
+        assertEquals(message + ": " + expected + " vs " + actual, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(message, expected.get(i), actual.get(i), 1e-4 * Math.max(1, Math.abs(expected.get(i))));
+        }
+    }
+
+    /**
+     * Checks that the top-K values of every measure of an engine are those of the reference.
+     */
+    static void assertMatchesReference(String message, MiningEngine engine, List<Transaction> transactions, int k,
+                                       int maxPer, float threshold, UtilityMeasure... measures) {
+        Map<UtilityMeasure, List<Itemset>> reference = referenceItemsets(transactions, maxPer, threshold);
+        for (UtilityMeasure measure : measures) {
+            assertValues(message + ", " + measure, referenceValues(reference, measure, k),
+                    values(engine.getResults(measure), measure));
+        }
+    }
+}
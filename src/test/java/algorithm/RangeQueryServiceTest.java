@@ -0,0 +1,157 @@
+package algorithm;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the range queries of the RangeQueryService: the top-K itemsets of a range, mined from the statistics of the
+ * indexed windows and seeded with their top-K itemsets, must be those of a new engine over the transactions of the
+ * range and, in projected mode, those of the brute-force reference (see MiningEngineReferenceTest).
+ */
+public class RangeQueryServiceTest {
+    private static final UtilityMeasure[] MEASURES = {UtilityMeasure.EXPECTED_UTILITY, UtilityMeasure.UTILITY};
+
+    private Path file;
+    private List<Transaction> transactions;
+
+    @Before
+    public void setUp() throws IOException {
+        this.file = Files.createTempFile("range", ".txt");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.file);
+        Files.deleteIfExists(BinaryDataset.cacheFile(this.file.toString()).toPath());
+    }
+
+    /**
+     * Writes random transactions about a day apart, over several weekly windows, and loads the service.
+     */
+    private RangeQueryService load(long seed, boolean projectedMode) throws IOException {
+        Random random = new Random(seed);
+        StringBuilder content = new StringBuilder();
+        long timestamp = 1_600_000_000L;
+        for (Transaction transaction : MiningEngineReferenceTest.randomTransactions(random, 60, 6)) {
+            timestamp += 43_200 + random.nextInt(86_400);
+            content.append(join(transaction.getItems())).append(':').append(transaction.getTransactionUtility())
+                    .append(':').append(join(transaction.getUtilities())).append(':').append(timestamp).append('\n');
+        }
+        Files.write(this.file, content.toString().getBytes(StandardCharsets.US_ASCII));
+        Files.deleteIfExists(BinaryDataset.cacheFile(this.file.toString()).toPath());
+
+        RangeQueryService service = new RangeQueryService(this.file.toString(), 3, 4, 0f);
+        service.setProjectedMode(projectedMode);
+        service.load();
+        this.transactions = new ArrayList<>();
+        service.getWindows().forEach(this.transactions::addAll);
+        return service;
+    }
+
+    private static String join(List<Integer> values) {
+        return values.stream().map(String::valueOf).collect(Collectors.joining(" "));
+    }
+
+    @Test
+    public void projectedQueriesMatchTheReference() throws IOException {
+        for (long seed = 0; seed < 10; seed++) {
+            RangeQueryService service = this.load(seed, true);
+            Random random = new Random(seed);
+            for (int query = 0; query < 20; query++) {
+                long first = this.transactions.get(0).getTimestamp();
+                long span = this.transactions.get(this.transactions.size() - 1).getTimestamp() - first;
+                long from = first + (long) (random.nextDouble() * span);
+                long to = from + (long) (random.nextDouble() * span / 2);
+                int k = 1 + random.nextInt(8);
+                int maxPer = random.nextBoolean() ? 4 : 100;
+
+                Map<UtilityMeasure, List<Itemset>> results = service.query(from, to, k, maxPer);
+                List<Transaction> range = this.range(from, to);
+                String message = "seed " + seed + ", query " + query;
+                if (range.isEmpty()) {
+                    for (UtilityMeasure measure : MEASURES) assertEquals(message, 0, results.get(measure).size());
+                    continue;
+                }
+                MiningEngine fresh = MiningEngineReferenceTest.projectedEngine(range, k, maxPer, 0f, MEASURES);
+                fresh.mineTopK();
+                Map<UtilityMeasure, List<Itemset>> reference =
+                        MiningEngineReferenceTest.referenceItemsets(range, maxPer, 0f);
+                for (UtilityMeasure measure : MEASURES) {
+                    List<Double> values = MiningEngineReferenceTest.values(results.get(measure), measure);
+                    MiningEngineReferenceTest.assertValues(message + ", " + measure,
+                            MiningEngineReferenceTest.referenceValues(reference, measure, k), values);
+                    MiningEngineReferenceTest.assertValues(message + ", " + measure,
+                            MiningEngineReferenceTest.values(fresh.getResults(measure), measure), values);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void treeGrowthQueriesMatchANewEngine() throws IOException {
+        for (long seed = 0; seed < 10; seed++) {
+            RangeQueryService service = this.load(seed, false);
+            Random random = new Random(seed);
+            for (int query = 0; query < 20; query++) {
+                long first = this.transactions.get(0).getTimestamp();
+                long span = this.transactions.get(this.transactions.size() - 1).getTimestamp() - first;
+                long from = first + (long) (random.nextDouble() * span);
+                long to = from + (long) (random.nextDouble() * span / 2);
+                List<Transaction> range = this.range(from, to);
+                if (range.isEmpty()) continue;
+
+                Map<UtilityMeasure, List<Itemset>> results = service.query(from, to, 3, 4);
+                MiningEngine fresh = new MiningEngine(range, 3, 4, 0f, MEASURES);
+                fresh.mineTopK();
+                for (UtilityMeasure measure : MEASURES) {
+                    assertEquals("seed " + seed + ", query " + query + ", " + measure,
+                            MiningEngineReferenceTest.values(fresh.getResults(measure), measure),
+                            MiningEngineReferenceTest.values(results.get(measure), measure));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void serveRejectsKBelowOneAndReversedRanges() throws IOException {
+        RangeQueryService service = this.load(0, true);
+        long from = this.transactions.get(0).getTimestamp();
+        long to = this.transactions.get(this.transactions.size() - 1).getTimestamp();
+        String queries = "topk " + from + " " + to + " 0\n" + "topk " + from + " " + to + " -3\n"
+                + "topk " + to + " " + from + "\n" + "topk " + from + " " + to + " 2\n";
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        service.serve(new BufferedReader(new StringReader(queries)), new PrintStream(output, true, "UTF-8"));
+
+        String[] answers = output.toString("UTF-8").split("\n\n");
+        assertEquals(5, answers.length); // The ready line, then one answer per query.
+        String usage = "Error: expected \"topk FROM TO [K [MAXPER]]\" with FROM <= TO and K >= 1";
+        for (int i = 1; i <= 3; i++) {
+            assertEquals(usage, answers[i].trim());
+        }
+        assertTrue(answers[4].startsWith("Range: "));
+    }
+
+    private List<Transaction> range(long from, long to) {
+        return this.transactions.stream()
+                .filter(transaction -> transaction.getTimestamp() >= from && transaction.getTimestamp() <= to)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,77 @@
+package algorithm;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the TopKCollector: the canonical itemset keys used for de-duplication, and the K itemsets of highest
+ * value kept in the min-heap.
+ */
+public class TopKCollectorTest {
+
+    private static Itemset itemset(int utility, Integer... items) {
+        return new Itemset(Arrays.asList(items), utility, 0f, 0);
+    }
+
+    private static long key(int... items) {
+        return TopKCollector.itemsetKey(items, items.length);
+    }
+
+    @Test
+    public void keysDoNotDependOnTheItemOrder() {
+        assertEquals(key(1, 2, 3), key(3, 1, 2));
+        assertEquals(key(1, 2), TopKCollector.itemsetKey(new int[]{2, 1, 9}, 2));
+        assertNotEquals(key(1, 2), key(1, 2, 3));
+        assertNotEquals(key(1, 2), key(1, 3));
+        assertNotEquals(key(1), key(1, 1));
+    }
+
+    @Test
+    public void recognizesTheItemsetsOfTheList() {
+        TopKCollector collector = new TopKCollector(2, Itemset::getUtility);
+
+        assertTrue(collector.offer(itemset(5, 1, 2), key(1, 2)));
+        assertTrue(collector.contains(key(2, 1)));
+        assertFalse(collector.contains(key(1)));
+
+        // Once an itemset is pushed out of the list, it may be offered again.
+        assertTrue(collector.offer(itemset(7, 1), key(1)));
+        assertTrue(collector.offer(itemset(9, 3), key(3)));
+        assertFalse(collector.contains(key(1, 2)));
+        assertTrue(collector.contains(key(1)));
+        assertTrue(collector.contains(key(3)));
+    }
+
+    @Test
+    public void keepsTheKHighestItemsets() {
+        TopKCollector collector = new TopKCollector(2, Itemset::getUtility);
+        assertNull(collector.peek());
+        assertTrue(collector.accepts(Double.NEGATIVE_INFINITY));
+
+        collector.offer(itemset(5, 1), key(1));
+        assertFalse(collector.isFull());
+        collector.offer(itemset(3, 2), key(2));
+        assertTrue(collector.isFull());
+        assertEquals(3, collector.peek().getUtility());
+
+        // A value must be strictly higher than the K-th value to enter a full list.
+        assertFalse(collector.accepts(3));
+        assertFalse(collector.offer(itemset(3, 4), key(4)));
+        assertTrue(collector.accepts(4));
+        assertTrue(collector.offer(itemset(8, 3), key(3)));
+
+        assertEquals(2, collector.size());
+        assertEquals(5, collector.peek().getUtility());
+        List<Itemset> itemsets = collector.getItemsets();
+        itemsets.sort((a, b) -> Integer.compare(b.getUtility(), a.getUtility()));
+        assertEquals(Arrays.asList(itemset(8, 3), itemset(5, 1)), itemsets);
+    }
+}
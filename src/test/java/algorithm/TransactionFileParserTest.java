@@ -0,0 +1,102 @@
+package algorithm;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the byte-level parsing of dataset files by TransactionFileParser: the fields of well-formed lines, and the
+ * malformed lines, which must be counted and skipped without stopping the parse.
+ */
+public class TransactionFileParserTest {
+    private Path file;
+    private TransactionFileParser parser;
+    private List<Transaction> transactions;
+
+    @Before
+    public void setUp() throws IOException {
+        this.file = Files.createTempFile("transactions", ".txt");
+        this.parser = new TransactionFileParser();
+        this.transactions = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.file);
+    }
+
+    private void parse(String content) throws IOException {
+        Files.write(this.file, content.getBytes(StandardCharsets.US_ASCII));
+        this.parser.parse(this.file.toString(), this.transactions::add);
+    }
+
+    @Test
+    public void parsesTheFourFields() throws IOException {
+        this.parse("1 2 3:60:10 20 30:1000\n4 5:-5:-10 5:1001\n");
+
+        assertEquals(2, this.transactions.size());
+        Transaction first = this.transactions.get(0);
+        assertEquals(1, first.getId());
+        assertEquals(Arrays.asList(1, 2, 3), first.getItems());
+        assertEquals(60, first.getTransactionUtility());
+        assertEquals(Arrays.asList(10, 20, 30), first.getUtilities());
+        assertEquals(1000L, first.getTimestamp());
+        Transaction second = this.transactions.get(1);
+        assertEquals(Arrays.asList(4, 5), second.getItems());
+        assertEquals(-5, second.getTransactionUtility());
+        assertEquals(Arrays.asList(-10, 5), second.getUtilities());
+        assertEquals(0, this.parser.getMalformedLines());
+    }
+
+    @Test
+    public void acceptsSpacesCarriageReturnsAndAMissingLastNewline() throws IOException {
+        this.parse("  1\t2 : 30 : 10 20 : 5\r\n\n1:10:10:6");
+
+        assertEquals(2, this.transactions.size());
+        assertEquals(Arrays.asList(1, 2), this.transactions.get(0).getItems());
+        assertEquals(5L, this.transactions.get(0).getTimestamp());
+        assertEquals(3, this.transactions.get(1).getId()); // The ID is the line number, blank lines included.
+        assertEquals(6L, this.transactions.get(1).getTimestamp());
+        assertEquals(0, this.parser.getMalformedLines());
+    }
+
+    @Test
+    public void countsAndSkipsMalformedLines() throws IOException {
+        this.parse("1 2:30:10 20:1\n"
+                + "1 -:10:5 -:100\n"       // Invalid values in both lists.
+                + "1 2:30:10:2\n"          // Lists of different lengths.
+                + "1 2:30:10 20\n"         // Missing timestamp.
+                + ":30::3\n"               // Empty lists.
+                + "1 x:30:10 20:4\n"       // Invalid item.
+                + "1:99999999999:10:5\n"   // Transaction utility out of the int range.
+                + "1:10:10:6 7\n"          // Trailing value.
+                + "3:10:10:7\n");
+
+        assertEquals(2, this.transactions.size());
+        assertEquals(1, this.transactions.get(0).getId());
+        assertEquals(9, this.transactions.get(1).getId());
+        assertEquals(7, this.parser.getMalformedLines());
+        assertEquals(2, this.parser.getFirstMalformedLine());
+    }
+
+    @Test
+    public void stopsAfterTheCurrentLine() throws IOException {
+        Files.write(this.file, "1:1:1:1\n2:2:2:2\n3:3:3:3\n".getBytes(StandardCharsets.US_ASCII));
+        this.parser.parse(this.file.toString(), transaction -> {
+            this.transactions.add(transaction);
+            if (this.transactions.size() == 2) this.parser.stop();
+        });
+
+        assertEquals(2, this.transactions.size());
+    }
+}
@@ -0,0 +1,121 @@
+package algorithm;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the single-pass WindowPartitioner produces the same weekly and hourly windows as the original
+ * partitioning of DatasetReader, which scanned all the transactions again for every window.
+ */
+public class WindowPartitionerTest {
+    private TimeZone defaultTimeZone;
+
+    @Before
+    public void setUp() {
+        this.defaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Paris")); // Days of 23 and 25 hours included.
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(this.defaultTimeZone);
+    }
+
+    @Test
+    public void producesTheWeeklyWindowsOfTheOriginalPartitioning() {
+        for (long seed = 0; seed < 20; seed++) {
+            List<Transaction> transactions = randomTransactions(new Random(seed), 500, 4 * 86400);
+            assertEquals("seed " + seed, reference(transactions, false, Integer.MAX_VALUE),
+                    WindowPartitioner.partition(transactions, false, Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void producesTheHourlyWindowsOfTheOriginalPartitioning() {
+        for (long seed = 0; seed < 20; seed++) {
+            List<Transaction> transactions = randomTransactions(new Random(seed), 500, 1800);
+            assertEquals("seed " + seed, reference(transactions, true, 6),
+                    WindowPartitioner.partition(transactions, true, 6));
+            assertEquals("seed " + seed, reference(transactions, true, Integer.MAX_VALUE),
+                    WindowPartitioner.partition(transactions, true, Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void reportsTheBoundariesAndStopsAfterTheLastWindow() {
+        List<List<Transaction>> windows = new ArrayList<>();
+        WindowPartitioner partitioner = new WindowPartitioner(true, 2, windows::add);
+        long start = 1_600_000_000L;
+        for (long offset : new long[]{0, 3600, 3601, 7201, 7202}) {
+            assertFalse(partitioner.isFinished());
+            partitioner.add(new Transaction((int) offset, Collections.singletonList(1), Collections.singletonList(1),
+                    1, start + offset));
+        }
+        assertTrue(partitioner.isFinished()); // The last transaction closed the second window.
+        partitioner.finish();
+
+        assertEquals(2, windows.size());
+        assertEquals(2, windows.get(0).size());
+        assertEquals(2, windows.get(1).size());
+        assertArrayEquals(new long[]{start, start + 3600}, partitioner.getBoundaries().get(0));
+        assertArrayEquals(new long[]{start + 3601, start + 7201}, partitioner.getBoundaries().get(1));
+    }
+
+    /**
+     * Returns timestamp-sorted transactions separated by random gaps, a few of them longer than several windows.
+     */
+    private static List<Transaction> randomTransactions(Random random, int count, int maxGap) {
+        List<Transaction> transactions = new ArrayList<>();
+        long timestamp = 1_577_836_800L + random.nextInt(365 * 86400);
+        for (int id = 1; id <= count; id++) {
+            timestamp += random.nextInt(50) == 0 ? 10L * maxGap + random.nextInt(maxGap) : random.nextInt(maxGap);
+            transactions.add(new Transaction(id, Collections.singletonList(id % 7), Collections.singletonList(1), 1,
+                    timestamp));
+        }
+        return transactions;
+    }
+
+    /**
+     * The original partitioning: every transaction reaching the start of the next window opens it, and the window
+     * is extracted by scanning all the transactions.
+     */
+    private static List<List<Transaction>> reference(List<Transaction> transactions, boolean oneHour, int maxWindows) {
+        List<List<Transaction>> windows = new ArrayList<>();
+        long startTimestamp = transactions.get(0).getTimestamp();
+        for (Transaction transaction : transactions) {
+            if (windows.size() == maxWindows) break;
+            if (transaction.getTimestamp() >= startTimestamp) {
+                long endTimestamp = oneHour ? startTimestamp + 3600 : alignToEndOfDay(startTimestamp) + 604800;
+                List<Transaction> window = new ArrayList<>();
+                for (Transaction other : transactions) {
+                    if (other.getTimestamp() >= startTimestamp && other.getTimestamp() <= endTimestamp) {
+                        window.add(other);
+                    }
+                }
+                windows.add(window);
+                startTimestamp = endTimestamp + 1;
+            }
+        }
+        return windows;
+    }
+
+    private static long alignToEndOfDay(long timestamp) {
+        LocalDateTime localDateTime = LocalDateTime.ofInstant(Instant.ofEpochSecond(timestamp), ZoneId.systemDefault());
+        return localDateTime.toLocalDate().atTime(23, 59, 59).atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+}